@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import f3.commons.serializer.converters.BitsConverter;
+
+/**
+ * Run of consecutive {@link f3.commons.serializer.types.Bits} fields packed into shared bitfield.
+ * Position of each field is known when plan is compiled, so fields are written and read by precomputed shift and mask
+ * into 64-bit words, each full word is written at once.
+ * @author n3k0nation
+ *
+ */
+class BitGroup implements IConverter {
+	private final Slot[] slots;
+	/** Total width of fields in bits */
+	private final int bits;
+	/** Serialized size in bytes */
+	private final int size;
+	
+	private BitGroup(Slot[] slots, int bits) {
+		this.slots = slots;
+		this.bits = bits;
+		size = BitsConverter.getByteCount(bits);
+	}
+	
+	/** Replaces each run of packed fields with single field plan of group. Group field plan is bound to first field of run. */
+	static FieldPlan[] pack(FieldPlan[] fields) {
+		FieldPlan[] result = null;
+		int count = 0;
+		for(int i = 0; i < fields.length; i++) {
+			int end = i;
+			while(end < fields.length && BitsConverter.isPacked(fields[end].field)) {
+				end++;
+			}
+			
+			if(end == i) {
+				if(result != null) {
+					result[count] = fields[i];
+				}
+				count++;
+				continue;
+			}
+			
+			if(result == null) {
+				result = new FieldPlan[fields.length];
+				System.arraycopy(fields, 0, result, 0, count);
+			}
+			
+			result[count++] = new FieldPlan(fields[i].field, compile(fields, i, end), false);
+			i = end - 1;
+		}
+		
+		if(result == null) {
+			return fields;
+		}
+		
+		final FieldPlan[] packed = new FieldPlan[count];
+		System.arraycopy(result, 0, packed, 0, count);
+		return packed;
+	}
+	
+	private static BitGroup compile(FieldPlan[] fields, int start, int end) {
+		final Slot[] slots = new Slot[end - start];
+		int position = 0;
+		for(int i = 0; i < slots.length; i++) {
+			final FieldPlan fieldPlan = fields[start + i];
+			final int width = BitsConverter.getWidth(fieldPlan.field);
+			slots[i] = new Slot(fieldPlan.accessor, BitsConverter.getKind(fieldPlan.field.getType()), width, position & (Long.SIZE - 1));
+			position += width;
+		}
+		return new BitGroup(slots, position);
+	}
+	
+	@Override
+	public boolean isSupport(Field field) {
+		return false;
+	}
+	
+	@Override
+	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		serialize(object, (FieldAccessor) null, buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Slot[] slots = this.slots;
+		long word = 0;
+		for(int i = 0; i < slots.length; i++) {
+			final Slot slot = slots[i];
+			final long value = BitsConverter.getValue(object, slot.accessor, slot.kind) & slot.mask;
+			word |= value << slot.shift;
+			if(slot.end) {
+				BitsConverter.writeBits(buffer, word, Long.SIZE);
+				word = slot.spill ? value >>> (Long.SIZE - slot.shift) : 0;
+			}
+		}
+		
+		final int tail = bits & (Long.SIZE - 1);
+		if(tail != 0) {
+			BitsConverter.writeBits(buffer, word, tail);
+		}
+	}
+	
+	@Override
+	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		deserialize(object, (FieldAccessor) null, buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Slot[] slots = this.slots;
+		int remaining = bits;
+		long word = BitsConverter.readBits(buffer, Math.min(remaining, Long.SIZE));
+		for(int i = 0; i < slots.length; i++) {
+			final Slot slot = slots[i];
+			long value = word >>> slot.shift;
+			if(slot.end) {
+				remaining -= Long.SIZE;
+				if(remaining > 0) {
+					word = BitsConverter.readBits(buffer, Math.min(remaining, Long.SIZE));
+					if(slot.spill) {
+						value |= word << (Long.SIZE - slot.shift);
+					}
+				}
+			}
+			BitsConverter.setValue(object, slot.accessor, slot.kind, value & slot.mask);
+		}
+	}
+	
+	@Override
+	public int getFixedSize(Field field, Serializer serializer) {
+		return size;
+	}
+	
+	@Override
+	public int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) {
+		return size;
+	}
+	
+	private static final class Slot {
+		final FieldAccessor accessor;
+		final int kind;
+		final long mask;
+		/** Position of field in current word */
+		final int shift;
+		/** Field completes current word */
+		final boolean end;
+		/** High bits of field continue in the next word */
+		final boolean spill;
+		
+		Slot(FieldAccessor accessor, int kind, int width, int shift) {
+			this.accessor = accessor;
+			this.kind = kind;
+			this.shift = shift;
+			mask = BitsConverter.getMask(width);
+			end = shift + width >= Long.SIZE;
+			spill = shift + width > Long.SIZE;
+		}
+	}
+}
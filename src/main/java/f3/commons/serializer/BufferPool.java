@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * Pool of reusable buffers of the same size. Each thread keeps one released buffer for itself, 
+ * others are shared through bounded queue. Buffer must not be used after release.
+ * @author n3k0nation
+ *
+ */
+public class BufferPool {
+	/** Heap pool of {@link Serializer#defaultBufferSize} buffers */
+	@Getter private final static BufferPool heapInstance = new BufferPool(Serializer.defaultBufferSize, 64, false);
+	/** Direct pool of {@link Serializer#defaultBufferSize} buffers */
+	@Getter private final static BufferPool directInstance = new BufferPool(Serializer.defaultBufferSize, 64, true);
+	
+	@Getter private final int bufferSize;
+	@Getter private final boolean direct;
+	private final int capacity;
+	
+	private final ThreadLocal<ByteBuffer> local = new ThreadLocal<>();
+	private final Queue<ByteBuffer> shared = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger sharedSize = new AtomicInteger();
+	
+	/**
+	 * @param bufferSize size of each buffer
+	 * @param capacity max count of buffers in shared queue
+	 * @param direct allocate direct buffers
+	 */
+	public BufferPool(int bufferSize, int capacity, boolean direct) {
+		this.bufferSize = bufferSize;
+		this.capacity = capacity;
+		this.direct = direct;
+	}
+	
+	/** @return cleared buffer from pool or new buffer if pool is empty */
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = local.get();
+		if(buffer != null) {
+			local.set(null);
+			return buffer;
+		}
+		
+		buffer = shared.poll();
+		if(buffer != null) {
+			sharedSize.decrementAndGet();
+			return buffer;
+		}
+		
+		return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+	}
+	
+	/** Return buffer to pool. Buffers of another size or kind and buffers over pool capacity are dropped. */
+	public void release(ByteBuffer buffer) {
+		if(buffer == null || buffer.capacity() != bufferSize || buffer.isDirect() != direct || buffer.isReadOnly()) {
+			return;
+		}
+		
+		buffer.clear();
+		if(local.get() == null) {
+			local.set(buffer);
+			return;
+		}
+		
+		if(sharedSize.incrementAndGet() > capacity) {
+			sharedSize.decrementAndGet();
+			return;
+		}
+		shared.offer(buffer);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Output of {@link Serializer} which grows by pooled chunks on demand. Written data is exposed as gathering array of buffers,
+ * chunks must be returned to pool by {@link #release()}.
+ * <p>
+ * Field is a unit of write: field which doesn't fit into current chunk is written again into the next chunk.
+ * Field which doesn't fit into empty chunk is written into dedicated larger buffer.
+ * @author n3k0nation
+ *
+ */
+public class ChunkedOutput {
+	@Getter private final BufferPool pool;
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+	private ByteBuffer current;
+	private ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+	
+	public ChunkedOutput(BufferPool pool) {
+		this.pool = pool;
+	}
+	
+	/** Create output with chunks from {@link BufferPool#getHeapInstance()} */
+	public ChunkedOutput() {
+		this(BufferPool.getHeapInstance());
+	}
+	
+	void setByteOrder(ByteOrder byteOrder) {
+		this.byteOrder = byteOrder;
+		if(current != null) {
+			current.order(byteOrder);
+		}
+	}
+	
+	/** @return chunk for writing */
+	ByteBuffer current() {
+		if(current == null) {
+			return next();
+		}
+		return current;
+	}
+	
+	/** Start new chunk */
+	ByteBuffer next() {
+		current = pool.acquire().order(byteOrder);
+		chunks.add(current);
+		return current;
+	}
+	
+	/** Replace current empty chunk with buffer twice as large */
+	ByteBuffer grow() {
+		final int capacity = current.capacity() << 1;
+		if(capacity < 0) {
+			throw new IllegalStateException("Chunk size overflow");
+		}
+		pool.release(current);
+		current = (pool.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity)).order(byteOrder);
+		chunks.set(chunks.size() - 1, current);
+		return current;
+	}
+	
+	/** @return count of written bytes */
+	public int size() {
+		int size = 0;
+		for(int i = 0; i < chunks.size(); i++) {
+			size += chunks.get(i).position();
+		}
+		return size;
+	}
+	
+	/** @return written data, each buffer is ready for reading */
+	public ByteBuffer[] getBuffers() {
+		final ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+		for(int i = 0; i < buffers.length; i++) {
+			final ByteBuffer chunk = chunks.get(i);
+			buffers[i] = chunk.duplicate().order(chunk.order());
+			buffers[i].flip();
+		}
+		return buffers;
+	}
+	
+	/** Return chunks to pool, output can be reused after release */
+	public void release() {
+		for(int i = 0; i < chunks.size(); i++) {
+			pool.release(chunks.get(i));
+		}
+		chunks.clear();
+		current = null;
+	}
+}
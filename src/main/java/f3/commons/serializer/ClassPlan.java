@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import f3.commons.serializer.converters.ArrayIndexConverter;
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Transient;
+import lombok.extern.slf4j.Slf4j;
+import sun.reflect.ReflectionFactory;
+
+/**
+ * Compiled serialization plan of class: ordered field bindings without any per-call reflection lookups.
+ * Deserialization plans also keep reusable instantiator.
+ * @author n3k0nation
+ *
+ */
+@Slf4j
+class ClassPlan {
+	final Class<?> type;
+	final FieldPlan[] fields;
+	/** Reusable instantiator which bypass class constructors, exists in deserialization and codec plans */
+	final Constructor<?> instantiator;
+	/** Specialized codec of class, if exists fields are not used */
+	final ICodec<Object> codec;
+	/** Constant-offset layout of fields, null if class has variable-size or non-primitive fields */
+	final FixedLayout layout;
+	/** Opcode size in bytes, 0 if class has no opcode */
+	final int opcodeSize;
+	/** Opcode value truncated to its size */
+	final int opcode;
+	/** Serialized size of class if it doesn't depend on field values, -1 if it depends, {@link #UNKNOWN_SIZE} if not computed yet */
+	int fixedSize = UNKNOWN_SIZE;
+	
+	static final int UNKNOWN_SIZE = -2;
+	
+	private ClassPlan(Class<?> type, FieldPlan[] fields, Constructor<?> instantiator, ICodec<Object> codec) throws IllegalArgumentException {
+		this.type = type;
+		this.fields = fields;
+		this.instantiator = instantiator;
+		this.codec = codec;
+		layout = codec == null ? FixedLayout.compile(fields) : null;
+		
+		final Opcode annotation = type.getAnnotation(Opcode.class);
+		if(annotation != null) {
+			try {
+				opcodeSize = OpcodeTable.getWidth(annotation);
+			} catch(IllegalArgumentException e) {
+				throw new IllegalArgumentException(e.getMessage() + " in " + type.getCanonicalName(), e);
+			}
+			opcode = OpcodeTable.getValue(annotation.value(), opcodeSize);
+		} else {
+			opcodeSize = 0;
+			opcode = 0;
+		}
+	}
+	
+	static ClassPlan forSerialization(Class<?> type, List<IConverter> converters) throws IllegalArgumentException {
+		final FieldPlan[] fields = compileFields(type, converters, 
+				field -> field.isAnnotationPresent(Transient.class) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic());
+		return new ClassPlan(type, fields, null, null);
+	}
+	
+	static ClassPlan forDeserialization(Class<?> type, List<IConverter> converters) throws IllegalArgumentException {
+		final FieldPlan[] fields = compileFields(type, converters, 
+				field -> field.isAnnotationPresent(Transient.class) || field.isSynthetic() || Modifier.isFinal(field.getModifiers()) || Modifier.isTransient(field.getModifiers()));
+		return new ClassPlan(type, fields, createInstantiator(type), null);
+	}
+	
+	@SuppressWarnings("unchecked")
+	static ClassPlan forCodec(Class<?> type, ICodec<?> codec) throws IllegalArgumentException {
+		return new ClassPlan(type, new FieldPlan[0], createInstantiator(type), (ICodec<Object>) codec);
+	}
+	
+	Object newInstance() throws ReflectiveOperationException {
+		return instantiator.newInstance();
+	}
+	
+	/** Writes opcode of class in byte-order of buffer, does nothing if class has no opcode */
+	void writeOpcode(ByteBuffer buffer) {
+		switch(opcodeSize) {
+			case 1:
+				buffer.put((byte) opcode);
+				break;
+			case 2:
+				buffer.putShort((short) opcode);
+				break;
+			case 4:
+				buffer.putInt(opcode);
+				break;
+		}
+	}
+	
+	private static FieldPlan[] compileFields(Class<?> type, List<IConverter> converters, Predicate<Field> skip) throws IllegalArgumentException {
+		final IConverter arrayConverter = ArrayIndexConverter.getInstance();
+		final List<FieldPlan> plans = new ArrayList<>();
+		
+		for(Field field : type.getDeclaredFields()) {
+			if(skip.test(field)) {
+				if(log.isDebugEnabled()) {
+					log.debug("Skip {}::{}", type.getCanonicalName(), field.getName());
+				}
+				continue;
+			}
+			
+			final boolean arrayIndex = arrayConverter.isSupport(field);
+			if(arrayIndex && log.isDebugEnabled()) {
+				log.debug("Found array index in {}::{}", type.getCanonicalName(), field.getName());
+			}
+			
+			final IConverter conv = findConverter(type, field, converters);
+			if(log.isDebugEnabled()) {
+				log.debug("Bind {}::{} with {}", type.getCanonicalName(), field.getName(), conv.getClass().getCanonicalName());
+			}
+			
+			plans.add(new FieldPlan(field, conv, arrayIndex));
+		}
+		
+		return BitGroup.pack(plans.toArray(new FieldPlan[plans.size()]));
+	}
+	
+	private static IConverter findConverter(Class<?> type, Field field, List<IConverter> converters) throws IllegalArgumentException {
+		return converters.stream()
+				.filter(converter -> converter.isSupport(field))
+				.findAny()
+				.orElseThrow(() -> new IllegalArgumentException("Unsupported data-type in " 
+						+ type.getCanonicalName() + "::" + field.getName()));
+	}
+	
+	private static Constructor<?> createInstantiator(Class<?> type) {
+		final ReflectionFactory rf = ReflectionFactory.getReflectionFactory();
+		try {
+			final Constructor<?> ctor = Object.class.getDeclaredConstructor();
+			ctor.setAccessible(true);
+			return rf.newConstructorForSerialization(type, ctor);
+		} catch(NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import f3.commons.serializer.types.Opcode;
+
+/**
+ * Lookup of codecs generated by {@link f3.commons.serializer.processor.CodecProcessor}.
+ * Codec of class <code>a.b.Outer$Inner</code> is named <code>a.b.Outer_InnerCodec</code>.
+ * @author n3k0nation
+ *
+ */
+class Codecs {
+	
+	private Codecs() {
+	}
+	
+	static String getCodecName(String binaryName) {
+		final int index = binaryName.lastIndexOf('.') + 1;
+		return binaryName.substring(0, index) + binaryName.substring(index).replace('$', '_') + "Codec";
+	}
+	
+	/** @return generated codec of class or null if not exists */
+	static ICodec<?> findGenerated(Class<?> type) {
+		if(!type.isAnnotationPresent(Opcode.class)) {
+			return null;
+		}
+		
+		final Class<?> codecClass;
+		try {
+			codecClass = Class.forName(getCodecName(type.getName()), true, type.getClassLoader());
+		} catch(ClassNotFoundException e) {
+			return null;
+		}
+		
+		if(!ICodec.class.isAssignableFrom(codecClass)) {
+			return null;
+		}
+		
+		try {
+			return (ICodec<?>) codecClass.getDeclaredConstructor().newInstance();
+		} catch(ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to create codec " + codecClass.getCanonicalName(), e);
+		}
+	}
+}
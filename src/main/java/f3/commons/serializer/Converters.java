@@ -19,13 +19,16 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import f3.commons.serializer.converters.BitsConverter;
 import f3.commons.serializer.converters.CharConverter;
 import f3.commons.serializer.converters.DwordConverter;
 import f3.commons.serializer.converters.InlineConverter;
 import f3.commons.serializer.converters.QwordConverter;
 import f3.commons.serializer.converters.RealConverter;
 import f3.commons.serializer.converters.UTF8Converter;
+import f3.commons.serializer.converters.VarIntConverter;
 import f3.commons.serializer.converters.WordConverter;
+import f3.commons.serializer.converters.ZigZagConverter;
 import lombok.Getter;
 
 /**
@@ -39,6 +42,9 @@ class Converters {
 			WordConverter.getInstance(),
 			CharConverter.getInstance(),
 			RealConverter.getInstance(),
+			VarIntConverter.getInstance(),
+			ZigZagConverter.getInstance(),
+			BitsConverter.getInstance(),
 			UTF8Converter.getInstance(),
 			InlineConverter.getInstance()
 	));
@@ -15,130 +15,109 @@
  */
 package f3.commons.serializer;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.ByteOrder;
 
 import f3.commons.serializer.converters.ArrayIndexConverter;
-import f3.commons.serializer.types.Opcode;
-import f3.commons.serializer.types.Transient;
-import sun.reflect.ReflectionFactory;
 
 /**
  * @author n3k0nation
  *
  */
 public class Deserializer {
-	private final Map<Integer, Class<?>> classes = new HashMap<>();
-	private final List<IConverter> converters;
+	private final Protocol protocol;
+	private final ClassValue<ClassPlan> plans;
 	
+	/** Create deserializer of shared protocol, deserializer has no state and may be used from any thread */
+	public Deserializer(Protocol protocol) {
+		this.protocol = protocol;
+		plans = protocol.deserializationPlans;
+	}
+	
+	/** Create deserializer for specified byte-order, it's used to detect ambiguous opcodes */
+	public Deserializer(ByteOrder byteOrder) {
+		this(Protocol.createPrivate(byteOrder));
+	}
+	
+	/** Create deserializer for LE byte-order */
 	public Deserializer() {
-		converters = new ArrayList<>(Converters.getConverters());
+		this(ByteOrder.LITTLE_ENDIAN);
 	}
 	
+	/** Register type and all nested types with opcode, see {@link Protocol#addType(Class...)} */
 	public void addType(Class<?> clazz) throws IllegalArgumentException, ReflectiveOperationException {
-		if(clazz.isInterface() || clazz.isEnum() || clazz.isSynthetic() || Modifier.isAbstract(clazz.getModifiers())) {
-			throw new IllegalArgumentException("Invalid modifiers");
-		}
-		
-		final Opcode opcode = clazz.getAnnotation(Opcode.class);
-		if(opcode == null) {
-			throw new IllegalArgumentException("Opcode not found");
-		}
-		
-		classes.put(opcode.value(), clazz);
-		
-		for(Field field : clazz.getDeclaredFields()) {
-			if(checkModifiers(field)) {
-				continue;
-			}
-			
-			Class<?> type = field.getType();
-			if(type.isArray()) {
-				type = type.getComponentType();
-			} else if(List.class.isAssignableFrom(type)) {
-				type = (Class<?>) ((ParameterizedType) type.getGenericSuperclass()).getActualTypeArguments()[0];
-			}
-			
-			if(type.isPrimitive()) {
-				continue;
-			}
-			
-			try {
-				addType(type);
-			} catch(IllegalArgumentException e) {
-				//ignore
-			}
-		}
+		protocol.addType(clazz);
 	}
 	
+	/** Use specialized codec instead of reflective converters for specified class
+	 * @exception UnsupportedOperationException if deserializer is created from shared protocol */
+	public <T> void addCodec(Class<T> type, ICodec<T> codec) {
+		protocol.addCodec(type, codec);
+	}
+	
+	/** Create instance of class without running its constructors and field initializers, the same way as reflective deserialization.
+	 * Used by generated codecs. */
+	public <T> T newInstance(Class<T> type) throws ReflectiveOperationException {
+		return type.cast(plans.get(type).newInstance());
+	}
+	
+	/** Read opcode and deserialize object of registered type */
+	@SuppressWarnings("unchecked")
 	public <T> T deserialize(ByteBuffer buffer) throws RuntimeException, IllegalArgumentException, ReflectiveOperationException {
-		final Class<?> type = getType(buffer);
-		if(type == null) {
+		final ClassPlan plan = protocol.getOpcodeTable().read(buffer);
+		if(plan == null) {
 			throw new RuntimeException("Type not found");
 		}
 		
-		return (T) deserializeObject(type, buffer);
+		return (T) deserializeObject(plan, buffer);
 	}
 	
-	private Class<?> getType(ByteBuffer buffer) {
-		final int position = buffer.position();
-		int opcode = buffer.get(position) & 0xff;
-		Class<?> type = classes.get(opcode);
-		if(type != null) {
-			return type;
+	public <T> T deserializeObject(Class<T> type, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException {
+		return type.cast(deserializeObject(plans.get(type), buffer));
+	}
+	
+	/** Deserialize fields into existing object without opcode. Mutable fields such as StringBuilder holders are reused,
+	 * so decoding of messages which are only inspected doesn't allocate once holders have grown to message size. */
+	public <T> T deserializeInto(T object, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException {
+		final ClassPlan plan = plans.get(object.getClass());
+		if(plan.codec != null) {
+			plan.codec.deserialize(object, buffer, this);
+			return object;
 		}
 		
-		opcode = buffer.getShort(position) & 0xffff;
-		type = classes.get(opcode);
-		if(type != null) {
-			return type;
+		readFields(plan, object, buffer);
+		return object;
+	}
+	
+	private Object deserializeObject(ClassPlan plan, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException {
+		if(plan.codec != null) {
+			return plan.codec.deserialize(buffer, this);
 		}
 		
-		opcode = buffer.getInt(position);
-		return classes.get(opcode);
+		final Object object = plan.newInstance();
+		readFields(plan, object, buffer);
+		return object;
 	}
 	
-	public <T> T deserializeObject(Class<T> type, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException {
-		final T object = createObject(type);
+	private void readFields(ClassPlan plan, Object object, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException {
+		if(plan.layout != null) {
+			plan.layout.read(object, buffer);
+			return;
+		}
 		
-		for(Field field : type.getDeclaredFields()) {
-			if(checkModifiers(field)) {
-				continue;
-			}
+		final FieldPlan[] fields = plan.fields;
+		for(int i = 0; i < fields.length; i++) {
+			final FieldPlan fieldPlan = fields[i];
 			
-			final IConverter arrayConverter = ArrayIndexConverter.getInstance();
-			if(arrayConverter.isSupport(field)) {
-				arrayConverter.deserialize(object, field, buffer, this);
+			if(fieldPlan.arrayIndex) {
+				ArrayIndexConverter.getInstance().deserialize(object, fieldPlan.accessor, buffer, this);
 			}
 			
-			final IConverter conv = converters.stream()
-					.filter(converter -> converter.isSupport(field))
-					.findAny()
-					.orElseThrow(() -> new IllegalArgumentException("Unsupported data-type in " 
-							+ object.getClass().getCanonicalName() + "::" + field.getName()));
-			
-			conv.deserialize(object, field, buffer, this);
+			if(fieldPlan.readStrategy != null) {
+				fieldPlan.readStrategy.read(object, fieldPlan.accessor, buffer);
+			} else {
+				fieldPlan.converter.deserialize(object, fieldPlan.accessor, buffer, this);
+			}
 		}
-		
-		return object;
-	}
-	
-	private <T> T createObject(Class<T> type) throws ReflectiveOperationException {
-		final ReflectionFactory rf = ReflectionFactory.getReflectionFactory();
-		Constructor<?> ctor = Object.class.getDeclaredConstructor();
-		ctor.setAccessible(true);
-		ctor = rf.newConstructorForSerialization(type, ctor);
-		return type.cast(ctor.newInstance());
-	}
-	
-	private boolean checkModifiers(Field field) {
-		return field.isAnnotationPresent(Transient.class) || field.isSynthetic() || Modifier.isFinal(field.getModifiers()) || Modifier.isTransient(field.getModifiers());
 	}
 }
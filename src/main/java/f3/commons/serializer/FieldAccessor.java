@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Getter;
+
+/**
+ * Field access through method handles bound once per field. Typed getters and setters must match field type exactly
+ * and do not box values.
+ * @author n3k0nation
+ *
+ */
+public class FieldAccessor {
+	/** Accessors of fields by declaring class, shared by field-based converter calls */
+	private static final ClassValue<Map<Field, FieldAccessor>> accessors = new ClassValue<Map<Field, FieldAccessor>>() {
+		@Override
+		protected Map<Field, FieldAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
+	@Getter private final Field field;
+	
+	/** (Object)T, where T is field type or Object for reference types */
+	private final MethodHandle getter;
+	/** (Object)Object */
+	private final MethodHandle boxedGetter;
+	/** (Object,T)void, null for final fields */
+	private final MethodHandle setter;
+	/** (Object,Object)void, null for final fields */
+	private final MethodHandle boxedSetter;
+	
+	public FieldAccessor(Field field) throws IllegalArgumentException {
+		this.field = field;
+		field.setAccessible(true);
+		
+		final Class<?> type = field.getType().isPrimitive() ? field.getType() : Object.class;
+		final boolean isStatic = Modifier.isStatic(field.getModifiers());
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			MethodHandle handle = lookup.unreflectGetter(field);
+			if(isStatic) {
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			getter = handle.asType(MethodType.methodType(type, Object.class));
+			boxedGetter = handle.asType(MethodType.methodType(Object.class, Object.class));
+			
+			if(Modifier.isFinal(field.getModifiers())) {
+				setter = null;
+				boxedSetter = null;
+			} else {
+				handle = lookup.unreflectSetter(field);
+				if(isStatic) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				setter = handle.asType(MethodType.methodType(void.class, Object.class, type));
+				boxedSetter = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			}
+		} catch(IllegalAccessException e) {
+			throw new IllegalArgumentException("Field " + field.getDeclaringClass().getCanonicalName() + "::" + field.getName() + " is not accessible", e);
+		}
+	}
+	
+	/** @return cached accessor of field, method handles are bound once per field */
+	public static FieldAccessor of(Field field) throws IllegalArgumentException {
+		final Map<Field, FieldAccessor> map = accessors.get(field.getDeclaringClass());
+		final FieldAccessor accessor = map.get(field);
+		return accessor != null ? accessor : map.computeIfAbsent(field, FieldAccessor::new);
+	}
+	
+	public Object get(Object object) throws ReflectiveOperationException {
+		try {
+			return boxedGetter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void set(Object object, Object value) throws ReflectiveOperationException {
+		try {
+			boxedSetter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public boolean getBoolean(Object object) throws ReflectiveOperationException {
+		try {
+			return (boolean) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public byte getByte(Object object) throws ReflectiveOperationException {
+		try {
+			return (byte) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public char getChar(Object object) throws ReflectiveOperationException {
+		try {
+			return (char) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public short getShort(Object object) throws ReflectiveOperationException {
+		try {
+			return (short) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public int getInt(Object object) throws ReflectiveOperationException {
+		try {
+			return (int) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public long getLong(Object object) throws ReflectiveOperationException {
+		try {
+			return (long) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public float getFloat(Object object) throws ReflectiveOperationException {
+		try {
+			return (float) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public double getDouble(Object object) throws ReflectiveOperationException {
+		try {
+			return (double) getter.invokeExact(object);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setBoolean(Object object, boolean value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setByte(Object object, byte value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setChar(Object object, char value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setShort(Object object, short value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setInt(Object object, int value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setLong(Object object, long value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setFloat(Object object, float value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	public void setDouble(Object object, double value) throws ReflectiveOperationException {
+		try {
+			setter.invokeExact(object, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+	
+	private static ReflectiveOperationException rethrow(Throwable e) {
+		if(e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		} else if(e instanceof Error) {
+			throw (Error) e;
+		}
+		return new InvocationTargetException(e);
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.lang.reflect.Field;
+
+import f3.commons.serializer.converters.IStrategyConverter;
+import f3.commons.serializer.converters.IStrategyConverter.IFieldWriteStrategy;
+import f3.commons.serializer.converters.IStrategyConverter.IReadStrategy;
+
+/**
+ * Field binding resolved once per class: field accessor, converter and (if converter supports it) read and write strategies.
+ * @author n3k0nation
+ *
+ */
+class FieldPlan {
+	final Field field;
+	final FieldAccessor accessor;
+	final IConverter converter;
+	/** Field has {@link f3.commons.serializer.types.Array} annotation and needs array index before value */
+	final boolean arrayIndex;
+	/** Write strategy of {@link IStrategyConverter}, otherwise null */
+	final IFieldWriteStrategy writeStrategy;
+	/** Read strategy of {@link IStrategyConverter}, otherwise null */
+	final IReadStrategy readStrategy;
+	
+	FieldPlan(Field field, IConverter converter, boolean arrayIndex) {
+		this.field = field;
+		this.converter = converter;
+		this.arrayIndex = arrayIndex;
+		accessor = FieldAccessor.of(field);
+		if(converter instanceof IStrategyConverter) {
+			writeStrategy = ((IStrategyConverter) converter).getFieldWriteStrategy(field);
+			readStrategy = ((IStrategyConverter) converter).getReadStrategy(field.getType());
+		} else {
+			writeStrategy = null;
+			readStrategy = null;
+		}
+	}
+}
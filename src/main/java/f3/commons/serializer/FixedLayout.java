@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import f3.commons.serializer.converters.CharConverter;
+import f3.commons.serializer.converters.DwordConverter;
+import f3.commons.serializer.converters.QwordConverter;
+import f3.commons.serializer.converters.RealConverter;
+import f3.commons.serializer.converters.WordConverter;
+import f3.commons.serializer.types.Array;
+
+/**
+ * Constant-offset layout of class which has only primitive fields of built-in data-types and fixed-length primitive arrays.
+ * Fields are written and read by absolute index after single bounds check. Conversions are the same as in converters.
+ * @author n3k0nation
+ *
+ */
+final class FixedLayout {
+	private static final int BOOLEAN = 0, BYTE = 1, CHAR = 2, SHORT = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7;
+	
+	private static final class Slot {
+		final FieldAccessor accessor;
+		final int offset;
+		/** data-type size in bytes */
+		final int width;
+		/** data-type is {@link f3.commons.serializer.types.Real} */
+		final boolean real;
+		/** primitive type of field or array component */
+		final int type;
+		/** length of fixed-length array, -1 for scalar field */
+		final int length;
+		
+		Slot(FieldAccessor accessor, int offset, int width, boolean real, int type, int length) {
+			this.accessor = accessor;
+			this.offset = offset;
+			this.width = width;
+			this.real = real;
+			this.type = type;
+			this.length = length;
+		}
+	}
+	
+	final int size;
+	private final Slot[] slots;
+	
+	private FixedLayout(Slot[] slots, int size) {
+		this.slots = slots;
+		this.size = size;
+	}
+	
+	/** @return layout of fields or null if some field has variable size or isn't primitive */
+	static FixedLayout compile(FieldPlan[] fields) {
+		final Slot[] slots = new Slot[fields.length];
+		int offset = 0;
+		for(int i = 0; i < fields.length; i++) {
+			final FieldPlan fieldPlan = fields[i];
+			final int width = getWidth(fieldPlan.converter);
+			if(width < 0) {
+				return null;
+			}
+			
+			Class<?> type = fieldPlan.field.getType();
+			int length = -1;
+			if(type.isArray()) {
+				final Array array = fieldPlan.field.getAnnotation(Array.class);
+				if(!fieldPlan.arrayIndex || array.length() == -1) {
+					return null;
+				}
+				length = array.length();
+				type = type.getComponentType();
+			}
+			
+			final int primitive = getType(type);
+			if(primitive < 0) {
+				return null;
+			}
+			
+			slots[i] = new Slot(fieldPlan.accessor, offset, width, fieldPlan.converter == RealConverter.getInstance(), primitive, length);
+			offset += width * Math.max(length, 1);
+		}
+		return new FixedLayout(slots, offset);
+	}
+	
+	private static int getWidth(IConverter converter) {
+		if(converter == CharConverter.getInstance()) {
+			return 1;
+		} else if(converter == WordConverter.getInstance()) {
+			return 2;
+		} else if(converter == DwordConverter.getInstance()) {
+			return 4;
+		} else if(converter == QwordConverter.getInstance() || converter == RealConverter.getInstance()) {
+			return 8;
+		}
+		return -1;
+	}
+	
+	private static int getType(Class<?> type) {
+		if(type == boolean.class) {
+			return BOOLEAN;
+		} else if(type == byte.class) {
+			return BYTE;
+		} else if(type == char.class) {
+			return CHAR;
+		} else if(type == short.class) {
+			return SHORT;
+		} else if(type == int.class) {
+			return INT;
+		} else if(type == long.class) {
+			return LONG;
+		} else if(type == float.class) {
+			return FLOAT;
+		} else if(type == double.class) {
+			return DOUBLE;
+		}
+		return -1;
+	}
+	
+	/** Writes opcode of plan and fields, fixed-length arrays are written with declared count of elements.
+	 * Buffer is left untouched if write fails.
+	 * @exception IllegalArgumentException if array is shorter than its fixed length */
+	void write(ClassPlan plan, Object object, ByteBuffer buffer) throws ReflectiveOperationException, BufferOverflowException, IllegalArgumentException {
+		if(buffer.remaining() < plan.opcodeSize + size) {
+			throw new BufferOverflowException();
+		}
+		
+		for(int i = 0; i < slots.length; i++) {
+			final Slot slot = slots[i];
+			if(slot.length >= 0 && java.lang.reflect.Array.getLength(slot.accessor.get(object)) < slot.length) {
+				final Field field = slot.accessor.getField();
+				throw new IllegalArgumentException("Array in " + field.getDeclaringClass().getCanonicalName() + "::" + field.getName() 
+					+ " is shorter than fixed length " + slot.length);
+			}
+		}
+		
+		plan.writeOpcode(buffer);
+		final int position = buffer.position();
+		for(int i = 0; i < slots.length; i++) {
+			final Slot slot = slots[i];
+			final int index = position + slot.offset;
+			if(slot.length < 0) {
+				writeScalar(slot, object, buffer, index);
+			} else {
+				final Object array = slot.accessor.get(object);
+				for(int j = 0; j < slot.length; j++) {
+					if(slot.type >= FLOAT) {
+						putReal(slot, buffer, index + j * slot.width, getDouble(array, slot.type, j));
+					} else {
+						putIntegral(slot, buffer, index + j * slot.width, getLong(array, slot.type, j));
+					}
+				}
+			}
+		}
+		buffer.position(position + size);
+	}
+	
+	void read(Object object, ByteBuffer buffer) throws ReflectiveOperationException, BufferUnderflowException {
+		final int position = buffer.position();
+		if(buffer.remaining() < size) {
+			throw new BufferUnderflowException();
+		}
+		
+		for(int i = 0; i < slots.length; i++) {
+			final Slot slot = slots[i];
+			final int index = position + slot.offset;
+			if(slot.length < 0) {
+				readScalar(slot, object, buffer, index);
+			} else {
+				Object array = slot.accessor.get(object);
+				final boolean reuse = array != null && java.lang.reflect.Array.getLength(array) == slot.length; //array of object deserialized in place is reused
+				if(!reuse) {
+					array = newArray(slot.type, slot.length);
+				}
+				for(int j = 0; j < slot.length; j++) {
+					final int elementIndex = index + j * slot.width;
+					if(slot.real) {
+						setDouble(array, slot.type, j, buffer.getDouble(elementIndex));
+					} else {
+						setLong(array, slot.type, j, getIntegral(slot, buffer, elementIndex));
+					}
+				}
+				if(!reuse) {
+					slot.accessor.set(object, array);
+				}
+			}
+		}
+		buffer.position(position + size);
+	}
+	
+	private static void writeScalar(Slot slot, Object object, ByteBuffer buffer, int index) throws ReflectiveOperationException {
+		final FieldAccessor accessor = slot.accessor;
+		switch(slot.type) {
+			case BOOLEAN: putIntegral(slot, buffer, index, accessor.getBoolean(object) ? 1 : 0); break;
+			case BYTE: putIntegral(slot, buffer, index, accessor.getByte(object)); break;
+			case CHAR: putIntegral(slot, buffer, index, accessor.getChar(object)); break;
+			case SHORT: putIntegral(slot, buffer, index, accessor.getShort(object)); break;
+			case INT: putIntegral(slot, buffer, index, accessor.getInt(object)); break;
+			case LONG: putIntegral(slot, buffer, index, accessor.getLong(object)); break;
+			case FLOAT: putReal(slot, buffer, index, accessor.getFloat(object)); break;
+			default: putReal(slot, buffer, index, accessor.getDouble(object)); break;
+		}
+	}
+	
+	private static void readScalar(Slot slot, Object object, ByteBuffer buffer, int index) throws ReflectiveOperationException {
+		final FieldAccessor accessor = slot.accessor;
+		if(slot.real) {
+			final double value = buffer.getDouble(index);
+			switch(slot.type) {
+				case BOOLEAN: accessor.setBoolean(object, (int) value != 0); break;
+				case BYTE: accessor.setByte(object, (byte) value); break;
+				case CHAR: accessor.setChar(object, (char) value); break;
+				case SHORT: accessor.setShort(object, (short) value); break;
+				case INT: accessor.setInt(object, (int) value); break;
+				case LONG: accessor.setLong(object, (long) value); break;
+				case FLOAT: accessor.setFloat(object, (float) value); break;
+				default: accessor.setDouble(object, value); break;
+			}
+		} else {
+			final long value = getIntegral(slot, buffer, index);
+			switch(slot.type) {
+				case BOOLEAN: accessor.setBoolean(object, (int) value != 0); break;
+				case BYTE: accessor.setByte(object, (byte) value); break;
+				case CHAR: accessor.setChar(object, (char) value); break;
+				case SHORT: accessor.setShort(object, (short) value); break;
+				case INT: accessor.setInt(object, (int) value); break;
+				case LONG: accessor.setLong(object, value); break;
+				case FLOAT: accessor.setFloat(object, value); break;
+				default: accessor.setDouble(object, value); break;
+			}
+		}
+	}
+	
+	/** Write value of integral field */
+	private static void putIntegral(Slot slot, ByteBuffer buffer, int index, long value) {
+		switch(slot.width) {
+			case 1: buffer.put(index, (byte) value); break;
+			case 2: buffer.putShort(index, (short) value); break;
+			case 4: buffer.putInt(index, (int) value); break;
+			default:
+				if(slot.real) {
+					buffer.putDouble(index, value);
+				} else {
+					buffer.putLong(index, value);
+				}
+				break;
+		}
+	}
+	
+	/** Write value of floating-point field */
+	private static void putReal(Slot slot, ByteBuffer buffer, int index, double value) {
+		switch(slot.width) {
+			case 1: buffer.put(index, (byte) value); break;
+			case 2: buffer.putShort(index, (short) value); break;
+			case 4: buffer.putInt(index, (int) value); break;
+			default:
+				if(slot.real) {
+					buffer.putDouble(index, value);
+				} else {
+					buffer.putLong(index, (long) value);
+				}
+				break;
+		}
+	}
+	
+	/** @return sign-extended value of integral data-type */
+	private static long getIntegral(Slot slot, ByteBuffer buffer, int index) {
+		switch(slot.width) {
+			case 1: return buffer.get(index);
+			case 2: return buffer.getShort(index);
+			case 4: return buffer.getInt(index);
+			default: return buffer.getLong(index);
+		}
+	}
+	
+	private static long getLong(Object array, int type, int index) {
+		switch(type) {
+			case BOOLEAN: return ((boolean[]) array)[index] ? 1 : 0;
+			case BYTE: return ((byte[]) array)[index];
+			case CHAR: return ((char[]) array)[index];
+			case SHORT: return ((short[]) array)[index];
+			case INT: return ((int[]) array)[index];
+			default: return ((long[]) array)[index];
+		}
+	}
+	
+	private static double getDouble(Object array, int type, int index) {
+		return type == FLOAT ? ((float[]) array)[index] : ((double[]) array)[index];
+	}
+	
+	private static Object newArray(int type, int length) {
+		switch(type) {
+			case BOOLEAN: return new boolean[length];
+			case BYTE: return new byte[length];
+			case CHAR: return new char[length];
+			case SHORT: return new short[length];
+			case INT: return new int[length];
+			case LONG: return new long[length];
+			case FLOAT: return new float[length];
+			default: return new double[length];
+		}
+	}
+	
+	private static void setLong(Object array, int type, int index, long value) {
+		switch(type) {
+			case BOOLEAN: ((boolean[]) array)[index] = (int) value != 0; break;
+			case BYTE: ((byte[]) array)[index] = (byte) value; break;
+			case CHAR: ((char[]) array)[index] = (char) value; break;
+			case SHORT: ((short[]) array)[index] = (short) value; break;
+			case INT: ((int[]) array)[index] = (int) value; break;
+			case LONG: ((long[]) array)[index] = value; break;
+			case FLOAT: ((float[]) array)[index] = value; break;
+			default: ((double[]) array)[index] = value; break;
+		}
+	}
+	
+	private static void setDouble(Object array, int type, int index, double value) {
+		switch(type) {
+			case BOOLEAN: ((boolean[]) array)[index] = (int) value != 0; break;
+			case BYTE: ((byte[]) array)[index] = (byte) value; break;
+			case CHAR: ((char[]) array)[index] = (char) value; break;
+			case SHORT: ((short[]) array)[index] = (short) value; break;
+			case INT: ((int[]) array)[index] = (int) value; break;
+			case LONG: ((long[]) array)[index] = (long) value; break;
+			case FLOAT: ((float[]) array)[index] = (float) value; break;
+			default: ((double[]) array)[index] = value; break;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Specialized serializer of single class. Writes and reads class fields with straight-line code
+ * instead of reflective converters. Opcode is written by {@link Serializer} before codec is called.
+ * @author n3k0nation
+ *
+ */
+public interface ICodec<T> {
+	void serialize(T object, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException;
+	T deserialize(ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException;
+	
+	/** Reads fields into existing object, mutable holders of object are reused.
+	 * @exception UnsupportedOperationException if codec always creates new object */
+	default T deserialize(T object, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		throw new UnsupportedOperationException("Codec " + getClass().getCanonicalName() + " can't deserialize into existing object");
+	}
+	
+	/** @return size of serialized object without opcode if it doesn't depend on field values, otherwise -1 */
+	default int getFixedSize() {
+		return -1;
+	}
+	
+	/** @return exact size of serialized object without opcode or -1 if unknown, then object is serialized to measure it */
+	default int sizeOf(T object, Serializer serializer) throws ReflectiveOperationException {
+		return -1;
+	}
+}
@@ -28,4 +28,34 @@ public interface IConverter {
 	
 	void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException;
 	void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException;
+	
+	/** Serialize field through accessor bound in class plan. By default delegates to reflective variant. */
+	default void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		serialize(object, accessor.getField(), buffer, serializer);
+	}
+	
+	/** Deserialize field through accessor bound in class plan. By default delegates to reflective variant. */
+	default void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		deserialize(object, accessor.getField(), buffer, deserializer);
+	}
+	
+	/** @return size of serialized field in bytes if it doesn't depend on field value, otherwise -1 */
+	default int getFixedSize(Field field, Serializer serializer) {
+		return -1;
+	}
+	
+	/** 
+	 * @return exact size of serialized field in bytes. By default field is serialized into pooled buffer to measure it.
+	 * @exception BufferOverflowException if field is bigger than buffer of {@link BufferPool#getHeapInstance()}
+	 */
+	default int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		final BufferPool pool = BufferPool.getHeapInstance();
+		final ByteBuffer buffer = pool.acquire();
+		try {
+			serialize(object, accessor, buffer, serializer);
+			return buffer.position();
+		} finally {
+			pool.release(buffer);
+		}
+	}
 }
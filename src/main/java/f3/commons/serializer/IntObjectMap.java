@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+/**
+ * Open-addressing map of primitive int keys with linear probing. Keys and values are kept in parallel arrays, 
+ * lookup doesn't allocate. Null values are not supported, null slot is free slot. Not thread-safe, must be 
+ * safely published after filling.
+ * @author n3k0nation
+ *
+ */
+final class IntObjectMap<V> {
+	private int[] keys;
+	private Object[] values;
+	/** capacity - 1, capacity is power of two */
+	private int mask;
+	private int size;
+	
+	IntObjectMap() {
+		this(8);
+	}
+	
+	IntObjectMap(int expectedSize) {
+		allocate(getCapacity(expectedSize));
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	@SuppressWarnings("unchecked")
+	V get(int key) {
+		final int[] keys = this.keys;
+		final Object[] values = this.values;
+		final int mask = this.mask;
+		for(int index = hash(key) & mask; ; index = (index + 1) & mask) {
+			final Object value = values[index];
+			if(value == null || keys[index] == key) {
+				return (V) value;
+			}
+		}
+	}
+	
+	/** @return previous value of key or null */
+	@SuppressWarnings("unchecked")
+	V put(int key, V value) {
+		if(value == null) {
+			throw new NullPointerException("value");
+		}
+		
+		for(int index = hash(key) & mask; ; index = (index + 1) & mask) {
+			final Object previous = values[index];
+			if(previous == null) {
+				keys[index] = key;
+				values[index] = value;
+				if(++size << 1 > mask + 1) {
+					rehash();
+				}
+				return null;
+			} else if(keys[index] == key) {
+				values[index] = value;
+				return (V) previous;
+			}
+		}
+	}
+	
+	private void rehash() {
+		final int[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate((mask + 1) << 1);
+		for(int i = 0; i < oldValues.length; i++) {
+			if(oldValues[i] == null) {
+				continue;
+			}
+			
+			int index = hash(oldKeys[i]) & mask;
+			while(values[index] != null) {
+				index = (index + 1) & mask;
+			}
+			keys[index] = oldKeys[i];
+			values[index] = oldValues[i];
+		}
+	}
+	
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+	
+	/** @return power of two capacity which keeps load factor not greater than 0.5 */
+	private static int getCapacity(int expectedSize) {
+		return Math.max(8, Integer.highestOneBit(Math.max(1, expectedSize) << 1) << 1);
+	}
+	
+	/** Fibonacci hashing, spreads sequential opcodes over table */
+	private static int hash(int key) {
+		final int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
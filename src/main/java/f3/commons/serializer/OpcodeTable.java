@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.function.Function;
+
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Word;
+
+/**
+ * Frozen opcode dispatch table of deserialization plans. Char opcodes are resolved by 256-entry array, Word opcodes 
+ * by 65536-entry array and Dword opcodes by primitive map. Shorter opcodes are probed first.
+ * @author n3k0nation
+ *
+ */
+final class OpcodeTable {
+	private final ClassPlan[] chars = new ClassPlan[0x100];
+	/** null if no Word opcodes registered */
+	private final ClassPlan[] words;
+	/** null if no Dword opcodes registered */
+	private final IntObjectMap<ClassPlan> dwords;
+	
+	OpcodeTable(Map<Class<?>, Opcode> opcodes, Function<Class<?>, ClassPlan> plans) {
+		ClassPlan[] words = null;
+		IntObjectMap<ClassPlan> dwords = null;
+		for(Map.Entry<Class<?>, Opcode> entry : opcodes.entrySet()) {
+			final Opcode opcode = entry.getValue();
+			final ClassPlan plan = plans.apply(entry.getKey());
+			final int width = getWidth(opcode);
+			final int value = getValue(opcode.value(), width);
+			if(width == 1) {
+				chars[value] = plan;
+			} else if(width == 2) {
+				if(words == null) {
+					words = new ClassPlan[0x10000];
+				}
+				words[value] = plan;
+			} else {
+				if(dwords == null) {
+					dwords = new IntObjectMap<>();
+				}
+				dwords.put(value, plan);
+			}
+		}
+		this.words = words;
+		this.dwords = dwords;
+	}
+	
+	/** Reads opcode from buffer.
+	 * @return plan of opcode type or null if opcode is unknown, in that case buffer position is not changed */
+	ClassPlan read(ByteBuffer buffer) {
+		final int position = buffer.position();
+		final int remaining = buffer.limit() - position;
+		if(remaining < 1) {
+			return null;
+		}
+		
+		ClassPlan type = chars[buffer.get(position) & 0xff];
+		if(type != null) {
+			buffer.position(position + 1);
+			return type;
+		}
+		
+		if(words != null && remaining >= 2) {
+			type = words[buffer.getShort(position) & 0xffff];
+			if(type != null) {
+				buffer.position(position + 2);
+				return type;
+			}
+		}
+		
+		if(dwords != null && remaining >= 4) {
+			type = dwords.get(buffer.getInt(position));
+			if(type != null) {
+				buffer.position(position + 4);
+				return type;
+			}
+		}
+		return null;
+	}
+	
+	/** @return opcode size in bytes */
+	static int getWidth(Opcode opcode) throws IllegalArgumentException {
+		if(opcode.type().equals(Char.class)) {
+			return 1;
+		} else if(opcode.type().equals(Word.class)) {
+			return 2;
+		} else if(opcode.type().equals(Dword.class)) {
+			return 4;
+		}
+		throw new IllegalArgumentException("Opcode format " + opcode.type().getSimpleName() + " not supported");
+	}
+	
+	/** @return opcode value truncated to its size as it's written by serializer */
+	static int getValue(int value, int width) {
+		return width == 4 ? value : value & ((1 << (width << 3)) - 1);
+	}
+	
+	/**
+	 * Checks that opcodes can't be confused by dispatch: equal opcodes of same size 
+	 * or shorter opcode which matches first bytes of longer one in specified byte-order.
+	 * @return true if opcodes are ambiguous
+	 */
+	static boolean isAmbiguous(Opcode a, Opcode b, ByteOrder byteOrder) {
+		final int widthA = getWidth(a), widthB = getWidth(b);
+		final int width = Math.min(widthA, widthB);
+		return getPrefix(a.value(), widthA, width, byteOrder) == getPrefix(b.value(), widthB, width, byteOrder);
+	}
+	
+	/** @return first <code>prefixWidth</code> bytes of opcode as they are read from buffer */
+	private static int getPrefix(int value, int width, int prefixWidth, ByteOrder byteOrder) {
+		value = getValue(value, width);
+		if(byteOrder == ByteOrder.BIG_ENDIAN) {
+			value >>>= (width - prefixWidth) << 3;
+		}
+		return getValue(value, prefixWidth);
+	}
+}
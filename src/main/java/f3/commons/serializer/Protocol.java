@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Transient;
+import lombok.Getter;
+
+/**
+ * Registry of types, converters and codecs shared by serializers and deserializers. Converters and codecs are frozen 
+ * at construction, plans are compiled once per class and registered types are kept in immutable dispatch table 
+ * which is replaced on registration (copy-on-write). Protocol may be used from any number of threads without locking.
+ * @author n3k0nation
+ *
+ */
+public final class Protocol {
+	@Getter private final ByteOrder byteOrder;
+	@Getter private final List<IConverter> converters;
+	private final Map<Class<?>, ICodec<?>> codecs;
+	final ClassValue<ClassPlan> serializationPlans;
+	final ClassValue<ClassPlan> deserializationPlans;
+	private final AtomicReference<Registry> registry = new AtomicReference<>();
+	
+	/** Create protocol with specified byte-order, converters and codecs */
+	public Protocol(ByteOrder byteOrder, List<IConverter> converters, Map<Class<?>, ICodec<?>> codecs) {
+		this(Collections.unmodifiableList(new ArrayList<>(converters)), Collections.unmodifiableMap(new HashMap<>(codecs)), byteOrder);
+	}
+	
+	/** Create protocol with specified byte-order and default converters */
+	public Protocol(ByteOrder byteOrder) {
+		this(byteOrder, Converters.getConverters(), Collections.emptyMap());
+	}
+	
+	/** Create protocol with LE byte-order and default converters */
+	public Protocol() {
+		this(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	private Protocol(List<IConverter> converters, Map<Class<?>, ICodec<?>> codecs, ByteOrder byteOrder) {
+		this.byteOrder = byteOrder;
+		this.converters = converters;
+		this.codecs = codecs;
+		serializationPlans = new ClassValue<ClassPlan>() {
+			@Override
+			protected ClassPlan computeValue(Class<?> type) {
+				final ICodec<?> codec = findCodec(type);
+				return codec != null ? ClassPlan.forCodec(type, codec) : ClassPlan.forSerialization(type, converters);
+			}
+		};
+		deserializationPlans = new ClassValue<ClassPlan>() {
+			@Override
+			protected ClassPlan computeValue(Class<?> type) {
+				final ICodec<?> codec = findCodec(type);
+				return codec != null ? ClassPlan.forCodec(type, codec) : ClassPlan.forDeserialization(type, converters);
+			}
+		};
+		registry.set(new Registry(Collections.emptyMap(), deserializationPlans::get));
+	}
+	
+	/** Protocol of single serializer or deserializer, its converters and codecs stay mutable until first use */
+	static Protocol createPrivate(ByteOrder byteOrder) {
+		return new Protocol(new ArrayList<>(Converters.getConverters()), new HashMap<>(), byteOrder);
+	}
+	
+	/**
+	 * Registers types and all nested types with opcode, compiles their deserialization plans. 
+	 * Serialization plans are compiled on first serialization.
+	 * @exception IllegalArgumentException if type has no opcode, invalid modifiers or unsupported data-type
+	 * @exception IllegalStateException if opcode is ambiguous with opcode of another registered type
+	 */
+	public void addType(Class<?>... types) throws IllegalArgumentException, IllegalStateException {
+		final Map<Class<?>, Opcode> added = new LinkedHashMap<>();
+		for(Class<?> type : types) {
+			collectType(type, added);
+		}
+		
+		while(true) {
+			final Registry current = registry.get();
+			final Map<Class<?>, Opcode> opcodes = new LinkedHashMap<>(current.opcodes);
+			for(Map.Entry<Class<?>, Opcode> entry : added.entrySet()) {
+				final Class<?> clazz = entry.getKey();
+				for(Map.Entry<Class<?>, Opcode> registered : opcodes.entrySet()) {
+					if(registered.getKey() != clazz && OpcodeTable.isAmbiguous(entry.getValue(), registered.getValue(), byteOrder)) {
+						throw new IllegalStateException("Opcode of " + clazz.getCanonicalName() + " is ambiguous with opcode of " + registered.getKey().getCanonicalName());
+					}
+				}
+				opcodes.put(clazz, entry.getValue());
+			}
+			
+			if(registry.compareAndSet(current, new Registry(opcodes, deserializationPlans::get))) {
+				return;
+			}
+		}
+	}
+	
+	/** Replaces codec of private protocol, dispatch table is rebuilt with new plans
+	 * @exception UnsupportedOperationException if protocol is shared */
+	<T> void addCodec(Class<T> type, ICodec<T> codec) throws UnsupportedOperationException {
+		codecs.put(type, codec);
+		serializationPlans.remove(type);
+		deserializationPlans.remove(type);
+		
+		while(true) {
+			final Registry current = registry.get();
+			if(registry.compareAndSet(current, new Registry(current.opcodes, deserializationPlans::get))) {
+				return;
+			}
+		}
+	}
+	
+	/** @return true if type is registered */
+	public boolean isRegistered(Class<?> type) {
+		return registry.get().opcodes.containsKey(type);
+	}
+	
+	OpcodeTable getOpcodeTable() {
+		return registry.get().table;
+	}
+	
+	private ICodec<?> findCodec(Class<?> type) {
+		final ICodec<?> codec = codecs.get(type);
+		return codec != null ? codec : Codecs.findGenerated(type);
+	}
+	
+	private void collectType(Class<?> clazz, Map<Class<?>, Opcode> added) throws IllegalArgumentException {
+		if(added.containsKey(clazz)) {
+			return;
+		}
+		
+		if(clazz.isInterface() || clazz.isEnum() || clazz.isSynthetic() || Modifier.isAbstract(clazz.getModifiers())) {
+			throw new IllegalArgumentException("Invalid modifiers");
+		}
+		
+		final Opcode opcode = clazz.getAnnotation(Opcode.class);
+		if(opcode == null) {
+			throw new IllegalArgumentException("Opcode not found");
+		}
+		
+		deserializationPlans.get(clazz);
+		added.put(clazz, opcode);
+		
+		for(Field field : clazz.getDeclaredFields()) {
+			if(checkModifiers(field)) {
+				continue;
+			}
+			
+			Class<?> type = field.getType();
+			if(type.isArray()) {
+				type = type.getComponentType();
+			} else if(List.class.isAssignableFrom(type)) {
+				final Type generic = field.getGenericType();
+				if(!(generic instanceof ParameterizedType)) {
+					continue;
+				}
+				
+				final Type argument = ((ParameterizedType) generic).getActualTypeArguments()[0];
+				if(!(argument instanceof Class)) {
+					continue;
+				}
+				type = (Class<?>) argument;
+			}
+			
+			if(type.isPrimitive()) {
+				continue;
+			}
+			
+			try {
+				collectType(type, added);
+			} catch(IllegalArgumentException e) {
+				//ignore
+			}
+		}
+	}
+	
+	private static boolean checkModifiers(Field field) {
+		return field.isAnnotationPresent(Transient.class) || field.isSynthetic() || Modifier.isFinal(field.getModifiers()) || Modifier.isTransient(field.getModifiers());
+	}
+	
+	/** Immutable snapshot of registered types */
+	private static final class Registry {
+		final Map<Class<?>, Opcode> opcodes;
+		final OpcodeTable table;
+		
+		Registry(Map<Class<?>, Opcode> opcodes, Function<Class<?>, ClassPlan> plans) {
+			this.opcodes = opcodes;
+			table = new OpcodeTable(opcodes, plans);
+		}
+	}
+}
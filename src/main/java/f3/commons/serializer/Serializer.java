@@ -15,40 +15,56 @@
  */
 package f3.commons.serializer;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.ArrayList;
 import java.util.List;
 
 import f3.commons.serializer.converters.ArrayIndexConverter;
-import f3.commons.serializer.types.Char;
-import f3.commons.serializer.types.DataType;
-import f3.commons.serializer.types.Dword;
-import f3.commons.serializer.types.Opcode;
-import f3.commons.serializer.types.Transient;
-import f3.commons.serializer.types.Word;
+import f3.commons.serializer.converters.InlineConverter;
 import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
 
 /**
  * @author n3k0nation
  *
  */
-@Slf4j
 public class Serializer {
 	/** Default buffer size for serialization. By default: 16kb */
 	public static int defaultBufferSize = 16*1024;
+	private static final FieldPlan[] NO_FIELDS = new FieldPlan[0];
 	
+	/** Converters used by this serializer. Must be configured before first serialization, plans are compiled once per class.
+	 * Converters of shared protocol can't be changed. */
 	@Getter private final List<IConverter> converters;
 	private final ByteOrder byteOrder;
+	private final Protocol protocol;
+	private final ClassValue<ClassPlan> plans;
+	/** Output of chunked serialization, null for serializer which writes into single buffer */
+	private final ChunkedOutput output;
+	/** Chunk switching is disabled while code which may hold reference to current chunk is running */
+	private int outputLock;
+	
+	/** Create serializer of shared protocol, serializer has no state and may be used from any thread */
+	public Serializer(Protocol protocol) {
+		converters = protocol.getConverters();
+		byteOrder = protocol.getByteOrder();
+		this.protocol = protocol;
+		plans = protocol.serializationPlans;
+		output = null;
+	}
 	
 	/** Create serializer with specified byte-order */
 	public Serializer(ByteOrder byteOrder) {
-		converters = new ArrayList<>(Converters.getConverters());
-		this.byteOrder = byteOrder;
+		this(Protocol.createPrivate(byteOrder));
+	}
+	
+	/** Serializer of single chunked serialization, shares configuration and plans with parent */
+	private Serializer(Serializer parent, ChunkedOutput output) {
+		converters = parent.converters;
+		byteOrder = parent.byteOrder;
+		protocol = parent.protocol;
+		plans = parent.plans;
+		this.output = output;
 	}
 	
 	/** Create serializer with LE byte-order */ 
@@ -56,6 +72,18 @@ public class Serializer {
 		this(ByteOrder.LITTLE_ENDIAN);
 	}
 	
+	/** Use specialized codec instead of reflective converters for specified class
+	 * @exception UnsupportedOperationException if serializer is created from shared protocol */
+	public <T> void addCodec(Class<T> type, ICodec<T> codec) {
+		protocol.addCodec(type, codec);
+	}
+	
+	/** Compile serialization plan of class ahead of first serialization.
+	 * @exception IllegalArgumentException if class has unsupported opcode format or field data-type */
+	public void addType(Class<?> clazz) throws IllegalArgumentException {
+		plans.get(clazz);
+	}
+	
 	/** Serialize object.
 	 * @exception BufferOverflowException if class to big (more than {@link Serializer#defaultBufferSize}) */
 	public ByteBuffer serialize(Object object) throws IllegalArgumentException, ReflectiveOperationException, BufferOverflowException {
@@ -64,68 +92,201 @@ public class Serializer {
 		return buffer;
 	}
 	
+	/** Serialize object to buffer borrowed from pool. Buffer must be returned by {@link BufferPool#release(ByteBuffer)}.
+	 * @exception BufferOverflowException if class to big (more than {@link BufferPool#getBufferSize()}) */
+	public ByteBuffer serialize(Object object, BufferPool pool) throws IllegalArgumentException, ReflectiveOperationException, BufferOverflowException {
+		final ByteBuffer buffer = pool.acquire().order(byteOrder);
+		try {
+			serializeObject(object, buffer);
+		} catch(RuntimeException | ReflectiveOperationException e) {
+			pool.release(buffer);
+			throw e;
+		}
+		return buffer;
+	}
+	
+	/** Serialize object to the end of chunked output, output grows while object doesn't fit. */
+	public void serialize(Object object, ChunkedOutput output) throws IllegalArgumentException, ReflectiveOperationException {
+		output.setByteOrder(byteOrder);
+		final Serializer serializer = new Serializer(this, output);
+		serializer.serializeObject(object, output.current());
+	}
+	
 	/** Serialize object to buffer.
 	 * @exception BufferOverflowException if class to big */
 	public void serializeObject(Object object, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException, BufferOverflowException {
+		if(output != null && outputLock == 0) {
+			serializeChunked(object);
+			return;
+		}
+		
 		final Class<?> clazz = object.getClass();
+		final ClassPlan plan = plans.get(clazz);
+		
+		if(plan.layout != null) {
+			plan.layout.write(plan, object, buffer);
+			return;
+		}
 		
-		writeOpcode(clazz, buffer);
+		plan.writeOpcode(buffer);
 		
-		final Field[] fields = clazz.getDeclaredFields();
+		if(plan.codec != null) {
+			plan.codec.serialize(object, buffer, this);
+			return;
+		}
+		
+		final FieldPlan[] fields = plan.fields;
 		for(int i = 0; i < fields.length; i++) {
-			final Field field = fields[i];
+			final FieldPlan fieldPlan = fields[i];
 			
-			if(field.isAnnotationPresent(Transient.class) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic()) {
-				if(log.isDebugEnabled()) {
-					log.debug("Skip {}::{}", clazz.getCanonicalName(), field.getName());
-				}
-				continue;
+			if(fieldPlan.arrayIndex) {
+				ArrayIndexConverter.getInstance().serialize(object, fieldPlan.accessor, buffer, this);
 			}
 			
-			final IConverter arrayConverter = ArrayIndexConverter.getInstance();
-			if(arrayConverter.isSupport(field)) {
-				if(log.isDebugEnabled()) {
-					log.debug("Found array index in {}::{}", clazz.getCanonicalName(), field.getName());
-				}
-				
-				arrayConverter.serialize(object, field, buffer, this);
+			if(fieldPlan.writeStrategy != null) {
+				fieldPlan.writeStrategy.write(object, fieldPlan.accessor, buffer);
+			} else {
+				fieldPlan.converter.serialize(object, fieldPlan.accessor, buffer, this);
 			}
-			
-			final IConverter conv = converters.stream()
-					.filter(converter -> converter.isSupport(field))
-					.findAny()
-					.orElseThrow(() -> new IllegalArgumentException("Unsupported data-type in " 
-							+ object.getClass().getCanonicalName() + "::" + field.getName()));
-			
-			if(log.isDebugEnabled()) {
-				log.debug("Serialize {}::{} with {}", clazz.getCanonicalName(), field.getName(), conv.getClass().getCanonicalName());
+		}
+	}
+	
+	/** @return exact count of bytes written by {@link #serializeObject(Object, ByteBuffer)} */
+	public int sizeOf(Object object) throws IllegalArgumentException, ReflectiveOperationException {
+		final Class<?> clazz = object.getClass();
+		final ClassPlan plan = plans.get(clazz);
+		final int fixedSize = getFixedSize(plan);
+		if(fixedSize >= 0) {
+			return fixedSize;
+		}
+		
+		if(plan.codec != null) {
+			final int size = plan.codec.sizeOf(object, this);
+			if(size >= 0) {
+				return plan.opcodeSize + size;
 			}
 			
-			conv.serialize(object, field, buffer, this);
+			final ChunkedOutput output = new ChunkedOutput();
+			try {
+				serialize(object, output);
+				return output.size();
+			} finally {
+				output.release();
+			}
+		}
+		
+		int size = plan.opcodeSize;
+		final FieldPlan[] fields = plan.fields;
+		for(int i = 0; i < fields.length; i++) {
+			final FieldPlan fieldPlan = fields[i];
+			if(fieldPlan.arrayIndex) {
+				size += ArrayIndexConverter.getInstance().sizeOf(object, fieldPlan.accessor, this);
+			}
+			size += fieldPlan.converter.sizeOf(object, fieldPlan.accessor, this);
+		}
+		return size;
+	}
+	
+	/** @return serialized size of class if it doesn't depend on field values, otherwise -1 */
+	public int getFixedSize(Class<?> type) {
+		return getFixedSize(plans.get(type));
+	}
+	
+	private int getFixedSize(ClassPlan plan) {
+		int size = plan.fixedSize;
+		if(size == ClassPlan.UNKNOWN_SIZE) {
+			plan.fixedSize = size = computeFixedSize(plan);
 		}
+		return size;
 	}
 	
-	private boolean writeOpcode(Class<?> clazz, ByteBuffer buffer) {
-		final Opcode opcode = clazz.getAnnotation(Opcode.class);
-		if(opcode == null) {
-			return false;
+	private int computeFixedSize(ClassPlan plan) {
+		if(plan.codec != null) {
+			final int size = plan.codec.getFixedSize();
+			return size >= 0 ? plan.opcodeSize + size : -1;
+		} else if(plan.layout != null) {
+			return plan.opcodeSize + plan.layout.size;
+		}
+		
+		int size = plan.opcodeSize;
+		final FieldPlan[] fields = plan.fields;
+		for(int i = 0; i < fields.length; i++) {
+			final FieldPlan fieldPlan = fields[i];
+			if(fieldPlan.arrayIndex) {
+				final int indexSize = ArrayIndexConverter.getInstance().getFixedSize(fieldPlan.field, this);
+				if(indexSize < 0) {
+					return -1;
+				}
+				size += indexSize;
+			}
+			
+			final int fieldSize = fieldPlan.converter.getFixedSize(fieldPlan.field, this);
+			if(fieldSize < 0) {
+				return -1;
+			}
+			size += fieldSize;
 		}
+		return size;
+	}
+	
+	/** Serialize object into current chunk of output, each field which overflows chunk is written again into the next one */
+	private void serializeChunked(Object object) throws IllegalArgumentException, ReflectiveOperationException {
+		final Class<?> clazz = object.getClass();
+		final ClassPlan plan = plans.get(clazz);
 		
-		if(!opcode.type().isAnnotationPresent(DataType.class)) {
-			throw new IllegalArgumentException("Unknown opcode format in " + clazz.getCanonicalName());
+		final FieldPlan[] fields = plan.layout != null ? NO_FIELDS : plan.fields;
+		for(int i = -1; i < fields.length; i++) {
+			ByteBuffer buffer = output.current();
+			int position = buffer.position();
+			while(true) {
+				try {
+					if(i == -1) {
+						if(plan.layout != null) {
+							plan.layout.write(plan, object, buffer);
+						} else {
+							plan.writeOpcode(buffer);
+							if(plan.codec != null) {
+								outputLock++;
+								try {
+									plan.codec.serialize(object, buffer, this);
+								} finally {
+									outputLock--;
+								}
+							}
+						}
+					} else {
+						serializeChunkedField(object, fields[i], buffer);
+					}
+					break;
+				} catch(BufferOverflowException e) {
+					if(output.current() != buffer) { //nested object already moved to the next chunk
+						throw e;
+					}
+					buffer.position(position);
+					buffer = position == 0 ? output.grow() : output.next();
+					position = 0;
+				}
+			}
+		}
+	}
+	
+	private void serializeChunkedField(Object object, FieldPlan fieldPlan, ByteBuffer buffer) throws IllegalArgumentException, ReflectiveOperationException {
+		if(fieldPlan.arrayIndex) {
+			ArrayIndexConverter.getInstance().serialize(object, fieldPlan.accessor, buffer, this);
 		}
 		
-		if(opcode.type().equals(Char.class)) {
-			buffer.put((byte) (opcode.value() & 0xff));
-		} else if(opcode.type().equals(Word.class)) {
-			buffer.putShort((short) (opcode.value() & 0xffff));
-		} else if(opcode.type().equals(Dword.class)) {
-			buffer.putInt(opcode.value());
+		if(fieldPlan.writeStrategy != null) {
+			fieldPlan.writeStrategy.write(object, fieldPlan.accessor, buffer);
+		} else if(fieldPlan.converter == InlineConverter.getInstance()) { //writes nested objects only
+			fieldPlan.converter.serialize(object, fieldPlan.accessor, buffer, this);
 		} else {
-			throw new IllegalArgumentException("Opcode format " + opcode.type().getSimpleName() + " not supported");
+			outputLock++;
+			try {
+				fieldPlan.converter.serialize(object, fieldPlan.accessor, buffer, this);
+			} finally {
+				outputLock--;
+			}
 		}
-		
-		return true;
 	}
 	
 }
@@ -15,6 +15,9 @@
  */
 package f3.commons.serializer.converters;
 
+import static f3.commons.serializer.converters.ConverterUtils.VARIABLE_SIZE;
+import static f3.commons.serializer.converters.ConverterUtils.getDataSize;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.nio.BufferOverflowException;
@@ -22,6 +25,7 @@ import java.nio.ByteBuffer;
 import java.util.List;
 
 import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.IConverter;
 import f3.commons.serializer.Serializer;
 import f3.commons.serializer.stub.ExArrayList;
@@ -31,6 +35,7 @@ import f3.commons.serializer.types.DataType;
 import f3.commons.serializer.types.Dword;
 import f3.commons.serializer.types.Qword;
 import f3.commons.serializer.types.Real;
+import f3.commons.serializer.types.VarInt;
 import f3.commons.serializer.types.Word;
 import lombok.Getter;
 
@@ -52,6 +57,12 @@ public class ArrayIndexConverter implements IConverter {
 
 	@Override
 	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		serialize(object, FieldAccessor.of(field), buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
 		final Array ann = field.getAnnotation(Array.class);
 		final Class<? extends Annotation> typeClass = ann.sizeType();
 		if(!typeClass.isAnnotationPresent(DataType.class)) {
@@ -59,13 +70,11 @@ public class ArrayIndexConverter implements IConverter {
 					+ " have wrong size type");
 		}
 		
-		field.setAccessible(true);
-		
 		final Array arrayAnn = field.getAnnotation(Array.class);
 		final boolean fixedLength = arrayAnn != null && arrayAnn.length() != -1;
 		
 		final int length;
-		final Object value = field.get(object);
+		final Object value = accessor.get(object);
 		if(fixedLength) {
 			length = arrayAnn.length();
 		} else if(field.getType().isArray()) {
@@ -85,6 +94,8 @@ public class ArrayIndexConverter implements IConverter {
 				buffer.putLong(length & 0xffffffffl);
 			} else if(typeClass.equals(Real.class)) {
 				buffer.putDouble(length);
+			} else if(typeClass.equals(VarInt.class)) {
+				VarIntConverter.putVarInt(buffer, length);
 			} else {
 				throw new IllegalArgumentException("Array annotation in " + object.getClass().getCanonicalName() + "::" + field.getName()
 						+ " have unsupported size type");
@@ -92,8 +103,44 @@ public class ArrayIndexConverter implements IConverter {
 		}
 	}
 	
+	@Override
+	public int getFixedSize(Field field, Serializer serializer) {
+		final Array ann = field.getAnnotation(Array.class);
+		if(ann.length() != -1) {
+			return 0;
+		}
+		
+		final int size = getDataSize(ann.sizeType());
+		return size == VARIABLE_SIZE ? -1 : size;
+	}
+	
+	@Override
+	public int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException {
+		final Field field = accessor.getField();
+		final Array ann = field.getAnnotation(Array.class);
+		if(ann.length() != -1) {
+			return 0;
+		}
+		
+		final int size = getDataSize(ann.sizeType());
+		if(size == VARIABLE_SIZE) {
+			final Object value = accessor.get(object);
+			return VarIntConverter.getVarIntSize(field.getType().isArray() ? java.lang.reflect.Array.getLength(value) : ((List<?>) value).size());
+		} else if(size < 0) {
+			throw new IllegalArgumentException("Array annotation in " + object.getClass().getCanonicalName() + "::" + accessor.getField().getName()
+					+ " have unsupported size type");
+		}
+		return size;
+	}
+	
 	@Override
 	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		deserialize(object, FieldAccessor.of(field), buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
 		final Array ann = field.getAnnotation(Array.class);
 		final Class<? extends Annotation> typeClass = ann.sizeType();
 		if(!typeClass.isAnnotationPresent(DataType.class)) {
@@ -101,8 +148,6 @@ public class ArrayIndexConverter implements IConverter {
 					+ " have wrong size type");
 		}
 		
-		field.setAccessible(true);
-		
 		final Array arrayAnn = field.getAnnotation(Array.class);
 		
 		final int length;
@@ -118,16 +163,20 @@ public class ArrayIndexConverter implements IConverter {
 			length = (int)buffer.getLong();
 		} else if(typeClass.equals(Real.class)) {
 			length = (int)buffer.getDouble();
+		} else if(typeClass.equals(VarInt.class)) {
+			length = VarIntConverter.getVarInt(buffer);
 		} else {
 			throw new IllegalArgumentException("Array annotation in " + object.getClass().getCanonicalName() + "::" + field.getName()
 					+ " have unsupported size type");
 		}
 		
-		field.setAccessible(true);
 		if(field.getType().isArray()) {
-			field.set(object, java.lang.reflect.Array.newInstance(field.getType().getComponentType(), length));
+			final Object current = accessor.get(object);
+			if(current == null || java.lang.reflect.Array.getLength(current) != length) { //array of object deserialized in place is reused
+				accessor.set(object, java.lang.reflect.Array.newInstance(field.getType().getComponentType(), length));
+			}
 		} else {
-			field.set(object, new ExArrayList<>(length));
+			accessor.set(object, new ExArrayList<>(length));
 		}
 	}
 
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values written by {@link BitWriter}. Reader is bounded by total count of bits, so it never reads bytes after bitfield.
+ * @author n3k0nation
+ *
+ */
+public final class BitReader {
+	private final ByteBuffer buffer;
+	private long word;
+	/** Count of unread bits in word */
+	private int count;
+	/** Count of bits which are not loaded from buffer yet */
+	private long remaining;
+	
+	/** @param bits total size of bitfield in bits */
+	public BitReader(ByteBuffer buffer, long bits) {
+		this.buffer = buffer;
+		remaining = bits;
+	}
+	
+	/** @return value of specified width, zero-extended
+	 * @exception BufferUnderflowException if value is out of bitfield */
+	public long read(int bits) throws BufferUnderflowException {
+		if(bits <= count) {
+			final long value = word & BitsConverter.getMask(bits);
+			word = bits < Long.SIZE ? word >>> bits : 0;
+			count -= bits;
+			return value;
+		}
+		
+		final int loaded = (int) Math.min(remaining, Long.SIZE);
+		if(count + loaded < bits) {
+			throw new BufferUnderflowException();
+		}
+		
+		long value = word;
+		final int have = count;
+		word = BitsConverter.readBits(buffer, loaded);
+		remaining -= loaded;
+		value |= word << have;
+		
+		final int rest = bits - have;
+		word = rest < Long.SIZE ? word >>> rest : 0;
+		count = loaded - rest;
+		return value & BitsConverter.getMask(bits);
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes values of arbitrary bit width into buffer. Bits are collected into 64-bit word which is written at once when it's full,
+ * {@link #flush()} writes rest of bits padded to whole bytes.
+ * @author n3k0nation
+ *
+ */
+public final class BitWriter {
+	private final ByteBuffer buffer;
+	private long word;
+	/** Count of bits in word */
+	private int count;
+	
+	public BitWriter(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+	
+	/** Writes low bits of value */
+	public void write(long value, int bits) {
+		value &= BitsConverter.getMask(bits);
+		word |= value << count;
+		count += bits;
+		if(count >= Long.SIZE) {
+			BitsConverter.writeBits(buffer, word, Long.SIZE);
+			count -= Long.SIZE;
+			word = count > 0 ? value >>> (bits - count) : 0;
+		}
+	}
+	
+	/** Writes collected bits, last byte is padded by zero bits */
+	public void flush() {
+		if(count > 0) {
+			BitsConverter.writeBits(buffer, word, count);
+			word = 0;
+			count = 0;
+		}
+	}
+}
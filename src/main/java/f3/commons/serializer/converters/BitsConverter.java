@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import static f3.commons.serializer.converters.ConverterUtils.getArrayLength;
+
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
+import f3.commons.serializer.IConverter;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Bits;
+import lombok.Getter;
+
+/**
+ * Single {@link Bits} field takes whole bytes, array elements are packed contiguously through {@link BitWriter}.
+ * Runs of consecutive {@link Bits} fields are packed together by class plan.
+ * @author n3k0nation
+ *
+ */
+public class BitsConverter implements IConverter {
+	
+	@Getter private final static IConverter instance = new BitsConverter();
+	
+	public static final int BOOLEAN = 0, BOXED_BOOLEAN = 1, BYTE = 2, CHAR = 3, SHORT = 4, INT = 5, LONG = 6, BOXED = 7;
+	
+	private BitsConverter() {
+	}
+	
+	@Override
+	public boolean isSupport(Field field) {
+		final Bits ann = field.getAnnotation(Bits.class);
+		if(ann == null) {
+			return false;
+		}
+		
+		final Class<?> type = field.getType();
+		if(type.isArray()) {
+			final Class<?> component = type.getComponentType();
+			return component.isPrimitive() && ann.value() >= 1 && ann.value() <= getMaxWidth(component);
+		}
+		return ann.value() >= 1 && ann.value() <= getMaxWidth(type);
+	}
+	
+	/** @return maximal width of field type in bits or -1 if type is not supported */
+	private static int getMaxWidth(Class<?> type) {
+		if(type == boolean.class || type == Boolean.class) {
+			return 1;
+		} else if(type == byte.class || type == Byte.class) {
+			return Byte.SIZE;
+		} else if(type == char.class || type == Character.class || type == short.class || type == Short.class) {
+			return Short.SIZE;
+		} else if(type == int.class || type == Integer.class) {
+			return Integer.SIZE;
+		} else if(type == long.class || type == Long.class) {
+			return Long.SIZE;
+		}
+		return -1;
+	}
+	
+	/** @return true if field is packed with neighbour fields into shared bitfield */
+	public static boolean isPacked(Field field) {
+		return field.isAnnotationPresent(Bits.class) && !field.getType().isArray();
+	}
+	
+	/** @return width of {@link Bits} field */
+	public static int getWidth(Field field) {
+		return field.getAnnotation(Bits.class).value();
+	}
+	
+	/** @return kind of scalar field type used by {@link #getValue(Object, FieldAccessor, int)} */
+	public static int getKind(Class<?> type) {
+		if(type == boolean.class) {
+			return BOOLEAN;
+		} else if(type == Boolean.class) {
+			return BOXED_BOOLEAN;
+		} else if(type == byte.class) {
+			return BYTE;
+		} else if(type == char.class) {
+			return CHAR;
+		} else if(type == short.class) {
+			return SHORT;
+		} else if(type == int.class) {
+			return INT;
+		} else if(type == long.class) {
+			return LONG;
+		}
+		return BOXED;
+	}
+	
+	/** @return value of field as bits, null is zero */
+	public static long getValue(Object object, FieldAccessor accessor, int kind) throws ReflectiveOperationException {
+		switch(kind) {
+			case BOOLEAN: return accessor.getBoolean(object) ? 1 : 0;
+			case BYTE: return accessor.getByte(object);
+			case CHAR: return accessor.getChar(object);
+			case SHORT: return accessor.getShort(object);
+			case INT: return accessor.getInt(object);
+			case LONG: return accessor.getLong(object);
+			case BOXED_BOOLEAN: return accessor.get(object) == Boolean.TRUE ? 1 : 0;
+		}
+		
+		final Object value = accessor.get(object);
+		if(value == null) {
+			return 0;
+		} else if(value instanceof Character) {
+			return (Character) value;
+		}
+		return ((Number) value).longValue();
+	}
+	
+	public static void setValue(Object object, FieldAccessor accessor, int kind, long value) throws ReflectiveOperationException {
+		switch(kind) {
+			case BOOLEAN: accessor.setBoolean(object, value != 0); return;
+			case BOXED_BOOLEAN: accessor.set(object, value != 0); return;
+			case BYTE: accessor.setByte(object, (byte) value); return;
+			case CHAR: accessor.setChar(object, (char) value); return;
+			case SHORT: accessor.setShort(object, (short) value); return;
+			case INT: accessor.setInt(object, (int) value); return;
+			case LONG: accessor.setLong(object, value); return;
+		}
+		
+		final Class<?> type = accessor.getField().getType();
+		if(type == Byte.class) {
+			accessor.set(object, (byte) value);
+		} else if(type == Character.class) {
+			accessor.set(object, (char) value);
+		} else if(type == Short.class) {
+			accessor.set(object, (short) value);
+		} else if(type == Integer.class) {
+			accessor.set(object, (int) value);
+		} else {
+			accessor.set(object, value);
+		}
+	}
+	
+	@Override
+	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		serialize(object, FieldAccessor.of(field), buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
+		final int width = getWidth(field);
+		if(!field.getType().isArray()) {
+			writeBits(buffer, getValue(object, accessor, getKind(field.getType())) & getMask(width), width);
+			return;
+		}
+		
+		final Object array = accessor.get(object);
+		final int length = getArrayLength(array, field);
+		if(array instanceof boolean[]) {
+			writeBitmap(buffer, (boolean[]) array, length);
+			return;
+		}
+		
+		final BitWriter writer = new BitWriter(buffer);
+		if(array instanceof byte[]) {
+			final byte[] values = (byte[]) array;
+			for(int i = 0; i < length; i++) {
+				writer.write(values[i], width);
+			}
+		} else if(array instanceof char[]) {
+			final char[] values = (char[]) array;
+			for(int i = 0; i < length; i++) {
+				writer.write(values[i], width);
+			}
+		} else if(array instanceof short[]) {
+			final short[] values = (short[]) array;
+			for(int i = 0; i < length; i++) {
+				writer.write(values[i], width);
+			}
+		} else if(array instanceof int[]) {
+			final int[] values = (int[]) array;
+			for(int i = 0; i < length; i++) {
+				writer.write(values[i], width);
+			}
+		} else {
+			final long[] values = (long[]) array;
+			for(int i = 0; i < length; i++) {
+				writer.write(values[i], width);
+			}
+		}
+		writer.flush();
+	}
+	
+	/** Bitmap is packed 64 elements per word */
+	private static void writeBitmap(ByteBuffer buffer, boolean[] array, int length) {
+		for(int offset = 0; offset < length; offset += Long.SIZE) {
+			final int count = Math.min(length - offset, Long.SIZE);
+			long word = 0;
+			for(int i = 0; i < count; i++) {
+				if(array[offset + i]) {
+					word |= 1L << i;
+				}
+			}
+			writeBits(buffer, word, count);
+		}
+	}
+	
+	@Override
+	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		deserialize(object, FieldAccessor.of(field), buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
+		final int width = getWidth(field);
+		if(!field.getType().isArray()) {
+			setValue(object, accessor, getKind(field.getType()), readBits(buffer, width));
+			return;
+		}
+		
+		final Object array = accessor.get(object);
+		final int length = getArrayLength(array, field);
+		if(array instanceof boolean[]) {
+			readBitmap(buffer, (boolean[]) array, length);
+			return;
+		}
+		
+		final BitReader reader = new BitReader(buffer, (long) length * width);
+		if(array instanceof byte[]) {
+			final byte[] values = (byte[]) array;
+			for(int i = 0; i < length; i++) {
+				values[i] = (byte) reader.read(width);
+			}
+		} else if(array instanceof char[]) {
+			final char[] values = (char[]) array;
+			for(int i = 0; i < length; i++) {
+				values[i] = (char) reader.read(width);
+			}
+		} else if(array instanceof short[]) {
+			final short[] values = (short[]) array;
+			for(int i = 0; i < length; i++) {
+				values[i] = (short) reader.read(width);
+			}
+		} else if(array instanceof int[]) {
+			final int[] values = (int[]) array;
+			for(int i = 0; i < length; i++) {
+				values[i] = (int) reader.read(width);
+			}
+		} else {
+			final long[] values = (long[]) array;
+			for(int i = 0; i < length; i++) {
+				values[i] = reader.read(width);
+			}
+		}
+	}
+	
+	private static void readBitmap(ByteBuffer buffer, boolean[] array, int length) {
+		for(int offset = 0; offset < length; offset += Long.SIZE) {
+			final int count = Math.min(length - offset, Long.SIZE);
+			final long word = readBits(buffer, count);
+			for(int i = 0; i < count; i++) {
+				array[offset + i] = (word >>> i & 1) != 0;
+			}
+		}
+	}
+	
+	@Override
+	public int getFixedSize(Field field, Serializer serializer) {
+		final int width = getWidth(field);
+		if(!field.getType().isArray()) {
+			return getByteCount(width);
+		}
+		
+		final Array arrayAnn = field.getAnnotation(Array.class);
+		return arrayAnn != null && arrayAnn.length() != -1 ? getByteCount((long) arrayAnn.length() * width) : -1;
+	}
+	
+	@Override
+	public int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException {
+		final Field field = accessor.getField();
+		final int width = getWidth(field);
+		if(!field.getType().isArray()) {
+			return getByteCount(width);
+		}
+		return getByteCount((long) getArrayLength(accessor.get(object), field) * width);
+	}
+	
+	/** @return count of bytes which holds specified count of bits */
+	public static int getByteCount(long bits) {
+		return (int) ((bits + 7) >>> 3);
+	}
+	
+	/** @return mask of low bits, from 1 up to 64 bits */
+	public static long getMask(int bits) {
+		return -1L >>> (Long.SIZE - bits);
+	}
+	
+	/** Writes low bits of word, least significant byte first. Full word is written by single put. */
+	public static void writeBits(ByteBuffer buffer, long word, int bits) {
+		if(bits == Long.SIZE) {
+			buffer.putLong(buffer.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word));
+			return;
+		}
+		
+		for(int i = getByteCount(bits); i > 0; i--) {
+			buffer.put((byte) word);
+			word >>>= 8;
+		}
+	}
+	
+	/** Reads bits written by {@link #writeBits(ByteBuffer, long, int)}, unused high bits of last byte are cleared */
+	public static long readBits(ByteBuffer buffer, int bits) {
+		if(bits == Long.SIZE) {
+			final long word = buffer.getLong();
+			return buffer.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+		}
+		
+		long word = 0;
+		final int bytes = getByteCount(bits);
+		for(int i = 0; i < bytes; i++) {
+			word |= (buffer.get() & 0xffL) << (i << 3);
+		}
+		return word & getMask(bits);
+	}
+	
+}
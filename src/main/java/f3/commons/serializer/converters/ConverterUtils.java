@@ -15,17 +15,33 @@
  */
 package f3.commons.serializer.converters;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
 import f3.commons.serializer.CasterAccessor;
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.ICaster;
+import f3.commons.serializer.converters.IStrategyConverter.IReadStrategy;
+import f3.commons.serializer.converters.IStrategyConverter.IWriteStrategy;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Qword;
+import f3.commons.serializer.types.Real;
+import f3.commons.serializer.types.VarInt;
+import f3.commons.serializer.types.Word;
 
 /**
  * @author n3k0nation
  *
  */
 class ConverterUtils {
+	/** Size of data-types which encoded length depends on value */
+	static final int VARIABLE_SIZE = -2;
 	
 	private ConverterUtils() {
 	}
@@ -40,202 +56,363 @@ class ConverterUtils {
 	}
 	
 	/**
-	 * @param values read data
-	 * @param array target array
+	 * @return array which holds exactly fixed length of elements: array itself or truncated copy of longer array
+	 * @exception IllegalArgumentException if array is shorter than fixed length
 	 */
-	static void setArrayType(Object object, Field field, Object[] values, Object array) throws ReflectiveOperationException {
-		final Class<?> type = field.getType();
-		final Class<?> component = type.getComponentType();
-		final Class<?> valuesType = values.getClass().getComponentType();
-		
-		final int length = values.length;
+	static Object getFixedArray(Object array, int length, Field field) throws IllegalArgumentException {
+		final int arrayLength = Array.getLength(array);
+		if(arrayLength == length) {
+			return array;
+		} else if(arrayLength < length) {
+			throw new IllegalArgumentException("Array in " + field.getDeclaringClass().getCanonicalName() + "::" + field.getName() 
+				+ " is shorter than fixed length " + length);
+		}
 		
-		if(!component.isPrimitive()) {
-			final ICaster caster = CasterAccessor.getInstance().getCaster(valuesType, component);
-			for (int i = 0; i < length; i++) {
-				Object value = values[i];
-				if(caster != null) {
-					value = caster.cast(value);
-				}
-				Array.set(array, i, value);
-			}
-		} else if (Number.class.isAssignableFrom(valuesType)) {
-			if (component.equals(boolean.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setBoolean(array, i, ((Number) values[i]).intValue() != 0);
-				}
-			} else if (component.equals(char.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setChar(array, i, (char) ((Number) values[i]).intValue());
-				}
-			} else if (component.equals(byte.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setByte(array, i, ((Number) values[i]).byteValue());
-				}
-			} else if (component.equals(short.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setShort(array, i, ((Number) values[i]).shortValue());
-				}
-			} else if (component.equals(int.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setInt(array, i, ((Number) values[i]).intValue());
-				}
-			} else if (component.equals(long.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setLong(array, i, ((Number) values[i]).longValue());
-				}
-			} else if (component.equals(float.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setFloat(array, i, ((Number) values[i]).floatValue());
+		final Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+	
+	/** @return size of data-type in bytes, {@link #VARIABLE_SIZE} for variable-length data-types or -1 if data-type is not supported */
+	static int getDataSize(Class<? extends Annotation> dataType) {
+		if(dataType == Char.class) {
+			return 1;
+		} else if(dataType == Word.class) {
+			return 2;
+		} else if(dataType == Dword.class) {
+			return 4;
+		} else if(dataType == Qword.class || dataType == Real.class) {
+			return 8;
+		} else if(dataType == VarInt.class) {
+			return VARIABLE_SIZE;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Write strategy of primitive array which component type has the same width as data-type.
+	 * Array is copied through typed view of buffer in buffer's byte order.
+	 */
+	static IWriteStrategy getBulkWriteStrategy(Class<?> type) {
+		if(type.equals(byte[].class)) {
+			return (value, buffer) -> buffer.put((byte[]) value);
+		} else if(type.equals(short[].class)) {
+			return (value, buffer) -> {
+				final short[] array = (short[]) value;
+				buffer.asShortBuffer().put(array);
+				buffer.position(buffer.position() + (array.length << 1));
+			};
+		} else if(type.equals(char[].class)) {
+			return (value, buffer) -> {
+				final char[] array = (char[]) value;
+				buffer.asCharBuffer().put(array);
+				buffer.position(buffer.position() + (array.length << 1));
+			};
+		} else if(type.equals(int[].class)) {
+			return (value, buffer) -> {
+				final int[] array = (int[]) value;
+				buffer.asIntBuffer().put(array);
+				buffer.position(buffer.position() + (array.length << 2));
+			};
+		} else if(type.equals(long[].class)) {
+			return (value, buffer) -> {
+				final long[] array = (long[]) value;
+				buffer.asLongBuffer().put(array);
+				buffer.position(buffer.position() + (array.length << 3));
+			};
+		} else if(type.equals(double[].class)) {
+			return (value, buffer) -> {
+				final double[] array = (double[]) value;
+				buffer.asDoubleBuffer().put(array);
+				buffer.position(buffer.position() + (array.length << 3));
+			};
+		}
+		throw new IllegalArgumentException("Unsupported bulk array type " + type.getCanonicalName());
+	}
+	
+	/**
+	 * Read strategy of primitive array which component type has the same width as data-type.
+	 * Array is copied through typed view of buffer in buffer's byte order.
+	 */
+	static IReadStrategy getBulkReadStrategy(Class<?> type) {
+		if(type.equals(byte[].class)) {
+			return (object, accessor, buffer) -> {
+				final byte[] array = (byte[]) accessor.get(object);
+				buffer.get(array, 0, getArrayLength(array, accessor.getField()));
+			};
+		} else if(type.equals(short[].class)) {
+			return (object, accessor, buffer) -> {
+				final short[] array = (short[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				buffer.asShortBuffer().get(array, 0, length);
+				buffer.position(buffer.position() + (length << 1));
+			};
+		} else if(type.equals(char[].class)) {
+			return (object, accessor, buffer) -> {
+				final char[] array = (char[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				buffer.asCharBuffer().get(array, 0, length);
+				buffer.position(buffer.position() + (length << 1));
+			};
+		} else if(type.equals(int[].class)) {
+			return (object, accessor, buffer) -> {
+				final int[] array = (int[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				buffer.asIntBuffer().get(array, 0, length);
+				buffer.position(buffer.position() + (length << 2));
+			};
+		} else if(type.equals(long[].class)) {
+			return (object, accessor, buffer) -> {
+				final long[] array = (long[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				buffer.asLongBuffer().get(array, 0, length);
+				buffer.position(buffer.position() + (length << 3));
+			};
+		} else if(type.equals(double[].class)) {
+			return (object, accessor, buffer) -> {
+				final double[] array = (double[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				buffer.asDoubleBuffer().get(array, 0, length);
+				buffer.position(buffer.position() + (length << 3));
+			};
+		}
+		throw new IllegalArgumentException("Unsupported bulk array type " + type.getCanonicalName());
+	}
+	
+	/**
+	 * Read strategy of array field for integral data-types. Primitive arrays are filled in place without boxing.
+	 * @param reader reads sign-extended value
+	 * @param boxedReader reads value for wrapper arrays
+	 */
+	static IReadStrategy getIntegralArrayReadStrategy(Class<?> type, ToLongFunction<ByteBuffer> reader, Function<ByteBuffer, Object> boxedReader) {
+		final Class<?> component = type.getComponentType();
+		if(component.equals(boolean.class)) {
+			return (object, accessor, buffer) -> {
+				final boolean[] array = (boolean[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (int) reader.applyAsLong(buffer) != 0;
 				}
-			} else if (component.equals(double.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setDouble(array, i, ((Number) values[i]).doubleValue());
+			};
+		} else if(component.equals(byte.class)) {
+			return (object, accessor, buffer) -> {
+				final byte[] array = (byte[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (byte) reader.applyAsLong(buffer);
 				}
-			}
-		} else if (valuesType.equals(Boolean.class) || valuesType.equals(boolean.class)) {
-			if (component.equals(boolean.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setBoolean(array, i, ((Boolean) values[i]).booleanValue());
+			};
+		} else if(component.equals(char.class)) {
+			return (object, accessor, buffer) -> {
+				final char[] array = (char[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (char) reader.applyAsLong(buffer);
 				}
-			} else if (component.equals(char.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setChar(array, i, (char) (((Boolean) values[i]) == Boolean.FALSE ? 0 : 1));
+			};
+		} else if(component.equals(short.class)) {
+			return (object, accessor, buffer) -> {
+				final short[] array = (short[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (short) reader.applyAsLong(buffer);
 				}
-			} else if (component.equals(byte.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setByte(array, i, (byte) (((Boolean) values[i]) == Boolean.FALSE ? 0 : 1));
+			};
+		} else if(component.equals(int.class)) {
+			return (object, accessor, buffer) -> {
+				final int[] array = (int[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (int) reader.applyAsLong(buffer);
 				}
-			} else if (component.equals(short.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setShort(array, i, (short) (((Boolean) values[i]) == Boolean.FALSE ? 0 : 1));
+			};
+		} else if(component.equals(long.class)) {
+			return (object, accessor, buffer) -> {
+				final long[] array = (long[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = reader.applyAsLong(buffer);
 				}
-			} else if (component.equals(int.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setInt(array, i, ((Boolean) values[i]) == Boolean.FALSE ? 0 : 1);
+			};
+		} else if(component.equals(float.class)) {
+			return (object, accessor, buffer) -> {
+				final float[] array = (float[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = reader.applyAsLong(buffer);
 				}
-			} else if (component.equals(long.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setLong(array, i, ((Boolean) values[i]) == Boolean.FALSE ? 0 : 1);
+			};
+		} else if(component.equals(double.class)) {
+			return (object, accessor, buffer) -> {
+				final double[] array = (double[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = reader.applyAsLong(buffer);
 				}
-			} else if (component.equals(float.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setFloat(array, i, ((Boolean) values[i]) == Boolean.FALSE ? 0 : 1);
+			};
+		} else {
+			return getBoxedArrayReadStrategy(boxedReader);
+		}
+	}
+	
+	/**
+	 * Read strategy of array field for floating-point data-types. Primitive arrays are filled in place without boxing.
+	 * @param reader reads value
+	 * @param boxedReader reads value for wrapper arrays
+	 */
+	static IReadStrategy getRealArrayReadStrategy(Class<?> type, ToDoubleFunction<ByteBuffer> reader, Function<ByteBuffer, Object> boxedReader) {
+		final Class<?> component = type.getComponentType();
+		if(component.equals(boolean.class)) {
+			return (object, accessor, buffer) -> {
+				final boolean[] array = (boolean[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (int) reader.applyAsDouble(buffer) != 0;
 				}
-			} else if (component.equals(double.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setDouble(array, i, ((Boolean) values[i]) == Boolean.FALSE ? 0 : 1);
+			};
+		} else if(component.equals(byte.class)) {
+			return (object, accessor, buffer) -> {
+				final byte[] array = (byte[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (byte) reader.applyAsDouble(buffer);
 				}
-			}
-		} else if (valuesType.equals(Character.class) || valuesType.equals(char.class)) {
-			if (component.equals(boolean.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setBoolean(array, i, ((Character) values[i]).charValue() != 0);
+			};
+		} else if(component.equals(char.class)) {
+			return (object, accessor, buffer) -> {
+				final char[] array = (char[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (char) reader.applyAsDouble(buffer);
 				}
-			} else if (component.equals(char.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setChar(array, i, ((Character) values[i]).charValue());
+			};
+		} else if(component.equals(short.class)) {
+			return (object, accessor, buffer) -> {
+				final short[] array = (short[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (short) reader.applyAsDouble(buffer);
 				}
-			} else if (component.equals(byte.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setByte(array, i, (byte) (((Character) values[i]).charValue() & 0xff));
+			};
+		} else if(component.equals(int.class)) {
+			return (object, accessor, buffer) -> {
+				final int[] array = (int[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (int) reader.applyAsDouble(buffer);
 				}
-			} else if (component.equals(short.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setShort(array, i, (short) (((Character) values[i]).charValue() & 0xffff));
+			};
+		} else if(component.equals(long.class)) {
+			return (object, accessor, buffer) -> {
+				final long[] array = (long[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (long) reader.applyAsDouble(buffer);
 				}
-			} else if (component.equals(int.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setInt(array, i, ((Character) values[i]).charValue() & 0xffff);
+			};
+		} else if(component.equals(float.class)) {
+			return (object, accessor, buffer) -> {
+				final float[] array = (float[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = (float) reader.applyAsDouble(buffer);
 				}
-			} else if (component.equals(long.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setLong(array, i, ((Character) values[i]).charValue() & 0xffff);
+			};
+		} else if(component.equals(double.class)) {
+			return (object, accessor, buffer) -> {
+				final double[] array = (double[]) accessor.get(object);
+				final int length = getArrayLength(array, accessor.getField());
+				for(int i = 0; i < length; i++) {
+					array[i] = reader.applyAsDouble(buffer);
 				}
-			} else if (component.equals(float.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setFloat(array, i, ((Character) values[i]).charValue());
+			};
+		} else {
+			return getBoxedArrayReadStrategy(boxedReader);
+		}
+	}
+	
+	/** Read strategy of wrapper array, caster is resolved once per array */
+	private static IReadStrategy getBoxedArrayReadStrategy(Function<ByteBuffer, Object> boxedReader) {
+		return (object, accessor, buffer) -> {
+			final Object[] array = (Object[]) accessor.get(object);
+			final int length = getArrayLength(array, accessor.getField());
+			final Class<?> component = array.getClass().getComponentType();
+			ICaster caster = null;
+			for(int i = 0; i < length; i++) {
+				Object value = boxedReader.apply(buffer);
+				if(i == 0) {
+					caster = CasterAccessor.getInstance().getCaster(value.getClass(), component);
 				}
-			} else if (component.equals(double.class)) {
-				for (int i = 0; i < length; i++) {
-					Array.setDouble(array, i, ((Character) values[i]).charValue());
+				if(caster != null) {
+					value = caster.cast(value);
 				}
+				array[i] = value;
 			}
+		};
+	}
+	
+	/**
+	 * Read strategy of scalar field for integral data-types.
+	 * @param reader reads sign-extended value
+	 * @param boxedReader reads value for wrapper fields
+	 */
+	static IReadStrategy getIntegralReadStrategy(Class<?> type, ToLongFunction<ByteBuffer> reader, Function<ByteBuffer, Object> boxedReader) {
+		if(type.equals(boolean.class)) {
+			return (object, accessor, buffer) -> accessor.setBoolean(object, (int) reader.applyAsLong(buffer) != 0);
+		} else if(type.equals(byte.class)) {
+			return (object, accessor, buffer) -> accessor.setByte(object, (byte) reader.applyAsLong(buffer));
+		} else if(type.equals(char.class)) {
+			return (object, accessor, buffer) -> accessor.setChar(object, (char) reader.applyAsLong(buffer));
+		} else if(type.equals(short.class)) {
+			return (object, accessor, buffer) -> accessor.setShort(object, (short) reader.applyAsLong(buffer));
+		} else if(type.equals(int.class)) {
+			return (object, accessor, buffer) -> accessor.setInt(object, (int) reader.applyAsLong(buffer));
+		} else if(type.equals(long.class)) {
+			return (object, accessor, buffer) -> accessor.setLong(object, reader.applyAsLong(buffer));
+		} else if(type.equals(float.class)) {
+			return (object, accessor, buffer) -> accessor.setFloat(object, reader.applyAsLong(buffer));
+		} else if(type.equals(double.class)) {
+			return (object, accessor, buffer) -> accessor.setDouble(object, reader.applyAsLong(buffer));
+		} else {
+			return (object, accessor, buffer) -> setSimpleType(object, accessor, boxedReader.apply(buffer));
 		}
 	}
 	
-	static void setSimpleType(Object object, Field field, Object value) throws ReflectiveOperationException {
-		final Class<?> type = field.getType();
-		final Class<?> valueType = value.getClass();
-		
-		if(type.isPrimitive()) {
-			if(Number.class.isAssignableFrom(valueType)) {
-				final Number number = (Number) value;
-				if(type.equals(boolean.class)) {
-					field.setBoolean(object, number.intValue() != 0);
-				} else if(type.equals(byte.class)) {
-					field.setByte(object, number.byteValue());
-				} else if(type.equals(char.class)) {
-					field.setChar(object, (char) number.intValue());
-				} else if(type.equals(short.class)) {
-					field.setShort(object, number.shortValue());
-				} else if(type.equals(int.class)) {
-					field.setInt(object, number.intValue());
-				} else if(type.equals(long.class)) {
-					field.setLong(object, number.longValue());
-				} else if(type.equals(float.class)) {
-					field.setFloat(object, number.floatValue());
-				} else if(type.equals(double.class)) {
-					field.setDouble(object, number.doubleValue());
-				}
-			} else if(valueType.equals(Boolean.class) || valueType.equals(boolean.class)) {
-				final Boolean bool = (Boolean) value;
-				final int intValue = bool == Boolean.FALSE ? 0 : 1;
-				if (type.equals(boolean.class)) {
-					field.setBoolean(object, bool.booleanValue());
-				} else if (type.equals(byte.class)) {
-					field.setByte(object, (byte) intValue);
-				} else if (type.equals(char.class)) {
-					field.setChar(object, (char) intValue);
-				} else if (type.equals(short.class)) {
-					field.setShort(object, (short) intValue);
-				} else if (type.equals(int.class)) {
-					field.setInt(object, intValue);
-				} else if (type.equals(long.class)) {
-					field.setLong(object, intValue);
-				} else if (type.equals(float.class)) {
-					field.setFloat(object, intValue);
-				} else if (type.equals(double.class)) {
-					field.setDouble(object, intValue);
-				}
-			} else if(valueType.equals(Character.class) || valueType.equals(char.class)) {
-				final Character character = (Character) value;
-				final int intValue = character.charValue() & 0xffff;
-				if (type.equals(boolean.class)) {
-					field.setBoolean(object, intValue != 0);
-				} else if (type.equals(byte.class)) {
-					field.setByte(object, (byte) intValue);
-				} else if (type.equals(char.class)) {
-					field.setChar(object, (char) intValue);
-				} else if (type.equals(short.class)) {
-					field.setShort(object, (short) intValue);
-				} else if (type.equals(int.class)) {
-					field.setInt(object, intValue);
-				} else if (type.equals(long.class)) {
-					field.setLong(object, intValue);
-				} else if (type.equals(float.class)) {
-					field.setFloat(object, intValue);
-				} else if (type.equals(double.class)) {
-					field.setDouble(object, intValue);
-				}
-			}
+	/**
+	 * Read strategy of scalar field for floating-point data-types.
+	 * @param reader reads value
+	 * @param boxedReader reads value for wrapper fields
+	 */
+	static IReadStrategy getRealReadStrategy(Class<?> type, ToDoubleFunction<ByteBuffer> reader, Function<ByteBuffer, Object> boxedReader) {
+		if(type.equals(boolean.class)) {
+			return (object, accessor, buffer) -> accessor.setBoolean(object, (int) reader.applyAsDouble(buffer) != 0);
+		} else if(type.equals(byte.class)) {
+			return (object, accessor, buffer) -> accessor.setByte(object, (byte) reader.applyAsDouble(buffer));
+		} else if(type.equals(char.class)) {
+			return (object, accessor, buffer) -> accessor.setChar(object, (char) reader.applyAsDouble(buffer));
+		} else if(type.equals(short.class)) {
+			return (object, accessor, buffer) -> accessor.setShort(object, (short) reader.applyAsDouble(buffer));
+		} else if(type.equals(int.class)) {
+			return (object, accessor, buffer) -> accessor.setInt(object, (int) reader.applyAsDouble(buffer));
+		} else if(type.equals(long.class)) {
+			return (object, accessor, buffer) -> accessor.setLong(object, (long) reader.applyAsDouble(buffer));
+		} else if(type.equals(float.class)) {
+			return (object, accessor, buffer) -> accessor.setFloat(object, (float) reader.applyAsDouble(buffer));
+		} else if(type.equals(double.class)) {
+			return (object, accessor, buffer) -> accessor.setDouble(object, reader.applyAsDouble(buffer));
 		} else {
-			final ICaster caster = CasterAccessor.getInstance().getCaster(valueType, type);
-			if(caster != null) {
-				value = caster.cast(value);
-			}
-			field.set(object, value);
+			return (object, accessor, buffer) -> setSimpleType(object, accessor, boxedReader.apply(buffer));
+		}
+	}
+	
+	/** Set value of wrapper or reference field */
+	static void setSimpleType(Object object, FieldAccessor accessor, Object value) throws ReflectiveOperationException {
+		final Class<?> type = accessor.getField().getType();
+		final ICaster caster = CasterAccessor.getInstance().getCaster(value.getClass(), type);
+		if(caster != null) {
+			value = caster.cast(value);
 		}
+		accessor.set(object, value);
 	}
 	
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import f3.commons.serializer.converters.IStrategyConverter.IFieldWriteStrategy;
+import f3.commons.serializer.converters.IStrategyConverter.IReadStrategy;
+
+/**
+ * Read and write strategies of field bound once per field and converter, shared by field-based converter calls.
+ * @author n3k0nation
+ *
+ */
+final class FieldStrategies {
+	/** Strategies of fields by declaring class */
+	private static final ClassValue<Map<Field, FieldStrategies>> strategies = new ClassValue<Map<Field, FieldStrategies>>() {
+		@Override
+		protected Map<Field, FieldStrategies> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
+	private final IStrategyConverter converter;
+	final IFieldWriteStrategy writeStrategy;
+	final IReadStrategy readStrategy;
+	
+	private FieldStrategies(IStrategyConverter converter, Field field) {
+		this.converter = converter;
+		writeStrategy = converter.getFieldWriteStrategy(field);
+		readStrategy = converter.getReadStrategy(field.getType());
+	}
+	
+	/** @return cached strategies of field, rebound if field was used with another converter */
+	static FieldStrategies of(IStrategyConverter converter, Field field) {
+		final Map<Field, FieldStrategies> map = strategies.get(field.getDeclaringClass());
+		FieldStrategies result = map.get(field);
+		if(result == null || result.converter != converter) {
+			result = new FieldStrategies(converter, field);
+			map.put(field, result);
+		}
+		return result;
+	}
+}
@@ -15,9 +15,13 @@
  */
 package f3.commons.serializer.converters;
 
+import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.IConverter;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Array;
 
 /**
  * @author n3k0nation
@@ -29,18 +33,90 @@ public interface IStrategyConverter extends IConverter {
 		void write(Object value, ByteBuffer buffer);
 	}
 	
-	default IWriteStrategy getWriteArrayStrategy(Class<?> type) {
-		final Class<?> arrayType = type.getComponentType();
-		final IWriteStrategy strategy;
-		if(arrayType.equals(Boolean.class) || arrayType.equals(boolean.class)) {
-			strategy = getWriteStrategy(Boolean.class);
-		} else if(arrayType.equals(Character.class) || arrayType.equals(char.class)) {
-			strategy = getWriteStrategy(Character.class);
+	/** Writes int, short, byte or char value without boxing */
+	static interface IIntWriteStrategy {
+		void writeInt(int value, ByteBuffer buffer);
+	}
+	
+	static interface ILongWriteStrategy {
+		void writeLong(long value, ByteBuffer buffer);
+	}
+	
+	/** Writes double or float value without boxing */
+	static interface IDoubleWriteStrategy {
+		void writeDouble(double value, ByteBuffer buffer);
+	}
+	
+	static interface IBooleanWriteStrategy {
+		void writeBoolean(boolean value, ByteBuffer buffer);
+	}
+	
+	/** Reads value of field and writes it without type checks on each call */
+	static interface IFieldWriteStrategy {
+		void write(Object object, FieldAccessor accessor, ByteBuffer buffer) throws ReflectiveOperationException;
+	}
+	
+	/** Reads value and stores it in field without type checks on each call */
+	static interface IReadStrategy {
+		void read(Object object, FieldAccessor accessor, ByteBuffer buffer) throws ReflectiveOperationException;
+	}
+	
+	/** Primitive fields are read by typed getter and written by primitive strategy, other fields by {@link #getWriteStrategy(Class)} */
+	default IFieldWriteStrategy getFieldWriteStrategy(Class<?> type) {
+		if(type.equals(boolean.class)) {
+			final IBooleanWriteStrategy strategy = getBooleanWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeBoolean(accessor.getBoolean(object), buffer);
+		} else if(type.equals(byte.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeInt(accessor.getByte(object), buffer);
+		} else if(type.equals(char.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeInt(accessor.getChar(object), buffer);
+		} else if(type.equals(short.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeInt(accessor.getShort(object), buffer);
+		} else if(type.equals(int.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeInt(accessor.getInt(object), buffer);
+		} else if(type.equals(long.class)) {
+			final ILongWriteStrategy strategy = getLongWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeLong(accessor.getLong(object), buffer);
+		} else if(type.equals(float.class)) {
+			final IDoubleWriteStrategy strategy = getDoubleWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeDouble(accessor.getFloat(object), buffer);
+		} else if(type.equals(double.class)) {
+			final IDoubleWriteStrategy strategy = getDoubleWriteStrategy();
+			return (object, accessor, buffer) -> strategy.writeDouble(accessor.getDouble(object), buffer);
 		} else {
-			strategy = getWriteStrategy(Number.class);
+			final IWriteStrategy strategy = getWriteStrategy(type);
+			return (object, accessor, buffer) -> strategy.write(accessor.get(object), buffer);
+		}
+	}
+	
+	/** Fixed-length arrays are written with exactly declared count of elements, the same count which is read */
+	default IFieldWriteStrategy getFieldWriteStrategy(Field field) {
+		final Class<?> type = field.getType();
+		final Array arrayAnn = field.getAnnotation(Array.class);
+		if(!type.isArray() || arrayAnn == null || arrayAnn.length() == -1) {
+			return getFieldWriteStrategy(type);
 		}
 		
+		final int length = arrayAnn.length();
+		final IWriteStrategy strategy = getWriteStrategy(type);
+		return (object, accessor, buffer) -> strategy.write(ConverterUtils.getFixedArray(accessor.get(object), length, field), buffer);
+	}
+	
+	default IWriteStrategy getWriteArrayStrategy(Class<?> type) {
+		final Class<?> arrayType = type.getComponentType();
 		if(!arrayType.isPrimitive()) {
+			final IWriteStrategy strategy;
+			if(arrayType.equals(Boolean.class)) {
+				strategy = getWriteStrategy(Boolean.class);
+			} else if(arrayType.equals(Character.class)) {
+				strategy = getWriteStrategy(Character.class);
+			} else {
+				strategy = getWriteStrategy(Number.class);
+			}
 			return (value, buffer) -> {
 				final Object[] array = (Object[]) value;
 				for(int i = 0; i < array.length; i++) {
@@ -48,63 +124,91 @@ public interface IStrategyConverter extends IConverter {
 				}
 			};
 		} else if(arrayType.equals(byte.class)) { //shit-code but is it faster then native call in Array 
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
 			return (value, buffer) -> {
 				final byte[] array = (byte[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeInt(array[i], buffer);
 				}
 			};
 		} else if(arrayType.equals(char.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
 			return (value, buffer) -> {
 				final char[] array = (char[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeInt(array[i], buffer);
 				}
 			};
 		} else if(arrayType.equals(short.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
 			return (value, buffer) -> {
 				final short[] array = (short[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeInt(array[i], buffer);
 				}
 			};
 		} else if(arrayType.equals(int.class)) {
+			final IIntWriteStrategy strategy = getIntWriteStrategy();
 			return (value, buffer) -> {
 				final int[] array = (int[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeInt(array[i], buffer);
 				}
 			};
 		} else if(arrayType.equals(long.class)) {
+			final ILongWriteStrategy strategy = getLongWriteStrategy();
 			return (value, buffer) -> {
 				final long[] array = (long[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeLong(array[i], buffer);
 				}
 			};
 		} else if(arrayType.equals(boolean.class)) {
+			final IBooleanWriteStrategy strategy = getBooleanWriteStrategy();
 			return (value, buffer) -> {
 				final boolean[] array = (boolean[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeBoolean(array[i], buffer);
 				}
 			};
 		} else if(arrayType.equals(float.class)) {
+			final IDoubleWriteStrategy strategy = getDoubleWriteStrategy();
 			return (value, buffer) -> {
 				final float[] array = (float[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeDouble(array[i], buffer);
 				}
 			};
 		} else {
+			final IDoubleWriteStrategy strategy = getDoubleWriteStrategy();
 			return (value, buffer) -> {
 				final double[] array = (double[]) value;
 				for(int i = 0; i < array.length; i++) {
-					strategy.write(array[i], buffer);
+					strategy.writeDouble(array[i], buffer);
 				}
 			};
 		}
 	}
 	
+	@Override
+	default int getFixedSize(Field field, Serializer serializer) {
+		return field.getType().isArray() ? -1 : getDataSize();
+	}
+	
+	@Override
+	default int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException {
+		if(accessor.getField().getType().isArray()) {
+			return ConverterUtils.getArrayLength(accessor.get(object), accessor.getField()) * getDataSize();
+		}
+		return getDataSize();
+	}
+	
+	/** @return size of data-type in bytes */
+	int getDataSize();
 	IWriteStrategy getWriteStrategy(Class<?> type);
+	IIntWriteStrategy getIntWriteStrategy();
+	ILongWriteStrategy getLongWriteStrategy();
+	IDoubleWriteStrategy getDoubleWriteStrategy();
+	IBooleanWriteStrategy getBooleanWriteStrategy();
+	IReadStrategy getReadStrategy(Class<?> type);
 }
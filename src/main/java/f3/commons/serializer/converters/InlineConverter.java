@@ -23,6 +23,7 @@ import java.util.List;
 
 import f3.commons.reflection.Primitive;
 import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.IConverter;
 import f3.commons.serializer.Serializer;
 import f3.commons.serializer.stub.ExArrayList;
@@ -57,9 +58,13 @@ public class InlineConverter implements IConverter {
 
 	@Override
 	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
-		field.setAccessible(true);
-		
-		final Object value = field.get(object);
+		serialize(object, FieldAccessor.of(field), buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
+		final Object value = accessor.get(object);
 		if(value == null) {
 			throw new NullPointerException("Inline value in " + object.getClass().getCanonicalName() + " is null!");
 		}
@@ -70,7 +75,7 @@ public class InlineConverter implements IConverter {
 				serializer.serializeObject(array[i], buffer);
 			}
 		} else if(List.class.isAssignableFrom(field.getType())) {
-			final List list = (List) value;
+			final List<?> list = (List<?>) value;
 			for(int i = 0; i < list.size(); i++) {
 				serializer.serializeObject(list.get(i), buffer);
 			}
@@ -79,11 +84,49 @@ public class InlineConverter implements IConverter {
 		}
 	}
 	
+	/** Single inline value is expected to be of declared type, as it's deserialized */
 	@Override
-	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
-		field.setAccessible(true);
+	public int getFixedSize(Field field, Serializer serializer) {
+		if(field.getType().isArray() || List.class.isAssignableFrom(field.getType())) {
+			return -1;
+		}
+		return serializer.getFixedSize(field.getType());
+	}
+	
+	@Override
+	public int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException {
+		final Field field = accessor.getField();
+		final Object value = accessor.get(object);
+		if(value == null) {
+			throw new NullPointerException("Inline value in " + object.getClass().getCanonicalName() + " is null!");
+		}
 		
-		final Object value = field.get(object);
+		int size = 0;
+		if(field.getType().isArray()) {
+			final Object[] array = (Object[]) value;
+			for(int i = 0; i < array.length; i++) {
+				size += serializer.sizeOf(array[i]);
+			}
+		} else if(List.class.isAssignableFrom(field.getType())) {
+			final List<?> list = (List<?>) value;
+			for(int i = 0; i < list.size(); i++) {
+				size += serializer.sizeOf(list.get(i));
+			}
+		} else {
+			size = serializer.sizeOf(value);
+		}
+		return size;
+	}
+	
+	@Override
+	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		deserialize(object, FieldAccessor.of(field), buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
+		final Object value = accessor.get(object);
 		
 		final Class<?> type = field.getType();
 		if(type.isArray()) {
@@ -102,7 +145,7 @@ public class InlineConverter implements IConverter {
 			}
 		} else {
 			final Object o = deserializer.deserializeObject(type, buffer);
-			field.set(object, o);
+			accessor.set(object, o);
 		}
 	}
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import f3.commons.serializer.types.Encoding;
+import lombok.Getter;
+
+/**
+ * Direct-mapped cache of decoded strings keyed on their encoded bytes, encoding and byte-order of UTF-16 sequences. Hit returns cached string without allocation, 
+ * miss replaces entry of slot. Entries are immutable, so cache is shared by all threads without locking.
+ * @author n3k0nation
+ *
+ */
+final class StringCache {
+	/** 4096 slots, sequences up to 64 bytes */
+	@Getter private final static StringCache instance = new StringCache(12, 64);
+	
+	private final Entry[] entries;
+	private final int mask;
+	/** Longer sequences are decoded without cache */
+	private final int maxLength;
+	
+	StringCache(int bits, int maxLength) {
+		entries = new Entry[1 << bits];
+		mask = entries.length - 1;
+		this.maxLength = maxLength;
+	}
+	
+	/** Reads sequence of specified byte length, returns cached string if the same bytes were decoded before */
+	String read(ByteBuffer buffer, int length, Encoding encoding) {
+		if(length > maxLength) {
+			return UTF8Converter.decode(buffer, length, encoding);
+		} else if(buffer.remaining() < length) {
+			throw new BufferUnderflowException();
+		}
+		
+		final int position = buffer.position();
+		final ByteOrder order = encoding == Encoding.UTF16 ? buffer.order() : null; //single-byte encodings doesn't depend on byte-order
+		final int hash = hash(buffer, position, length) * 31 + (encoding.ordinal() << 1 | (order == ByteOrder.BIG_ENDIAN ? 1 : 0));
+		final int index = (hash ^ (hash >>> 16)) & mask;
+		final Entry entry = entries[index];
+		if(entry != null && entry.hash == hash && entry.encoding == encoding && entry.order == order && entry.matches(buffer, position, length)) {
+			buffer.position(position + length);
+			return entry.value;
+		}
+		
+		final byte[] key = new byte[length];
+		for(int i = 0; i < length; i++) {
+			key[i] = buffer.get(position + i);
+		}
+		final String value = UTF8Converter.decode(buffer, length, encoding);
+		entries[index] = new Entry(hash, encoding, order, key, value);
+		return value;
+	}
+	
+	private static int hash(ByteBuffer buffer, int position, int length) {
+		int hash = length;
+		for(int i = 0; i < length; i++) {
+			hash = hash * 31 + buffer.get(position + i);
+		}
+		return hash;
+	}
+	
+	private static final class Entry {
+		final int hash;
+		final Encoding encoding;
+		/** Byte-order of UTF-16 sequence, null for other encodings */
+		final ByteOrder order;
+		final byte[] key;
+		final String value;
+		
+		Entry(int hash, Encoding encoding, ByteOrder order, byte[] key, String value) {
+			this.hash = hash;
+			this.encoding = encoding;
+			this.order = order;
+			this.key = key;
+			this.value = value;
+		}
+		
+		boolean matches(ByteBuffer buffer, int position, int length) {
+			if(key.length != length) {
+				return false;
+			}
+			
+			for(int i = 0; i < length; i++) {
+				if(key[i] != buffer.get(position + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
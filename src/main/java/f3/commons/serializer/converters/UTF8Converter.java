@@ -15,20 +15,29 @@
  */
 package f3.commons.serializer.converters;
 
+import static f3.commons.serializer.converters.ConverterUtils.getDataSize;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.IConverter;
 import f3.commons.serializer.Serializer;
 import f3.commons.serializer.types.Char;
 import f3.commons.serializer.types.DataType;
 import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Encoding;
 import f3.commons.serializer.types.Qword;
 import f3.commons.serializer.types.Real;
 import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.VarInt;
 import f3.commons.serializer.types.Word;
 import lombok.Getter;
 
@@ -40,6 +49,14 @@ public class UTF8Converter implements IConverter {
 	
 	@Getter private final static IConverter instance = new UTF8Converter();
 	
+	/** Longer sequences use temporary arrays instead of per-thread scratch arrays */
+	private final static int MAX_SCRATCH_SIZE = 64 * 1024;
+	private final static char REPLACEMENT = '\ufffd';
+	private final static long BYTE_LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private final static long CHAR_LOW_BITS = 0x7FFF7FFF7FFF7FFFL;
+	private final static ThreadLocal<char[]> charScratch = ThreadLocal.withInitial(() -> new char[256]);
+	private final static ThreadLocal<byte[]> byteScratch = ThreadLocal.withInitial(() -> new byte[256]);
+	
 	private UTF8Converter() {
 	}
 
@@ -70,60 +87,130 @@ public class UTF8Converter implements IConverter {
 
 	@Override
 	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
-		field.setAccessible(true);
-		
+		serialize(object, FieldAccessor.of(field), buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
 		final boolean isCStr = isCStr(field); 
+		final Encoding encoding = getEncoding(field);
 		
 		if(field.getType().isArray()) {
 			final f3.commons.serializer.types.Array arrayAnn = field.getAnnotation(f3.commons.serializer.types.Array.class);
-			final CharSequence[] sequences = (CharSequence[]) field.get(object);
+			final CharSequence[] sequences = (CharSequence[]) accessor.get(object);
 			final int length = arrayAnn != null && arrayAnn.length() != -1 ? arrayAnn.length() : sequences.length;
 			for(int i = 0; i < length; i++) {
+				writeSequence(object, field, buffer, sequences[i], isCStr, encoding);
+			}
+		} else {
+			writeSequence(object, field, buffer, (CharSequence) accessor.get(object), isCStr, encoding);
+		}
+	}
+	
+	private static void writeSequence(Object object, Field field, ByteBuffer buffer, CharSequence sequence, boolean isCStr, Encoding encoding) {
+		if(!isCStr) {
+			writeLength(object, field, buffer, getEncodedLength(sequence, encoding));
+		}
+		
+		switch(encoding) {
+			case UTF8:
 				if(isCStr) {
-					writeCStr(sequences[i], buffer);
+					writeUTF8CStr(sequence, buffer);
 				} else {
-					writeLength(object, field, buffer, sequences[i].length());
-					write(sequences[i], buffer);
+					writeUTF8(sequence, buffer);
 				}
+				break;
+			case LATIN1:
+				if(isCStr) {
+					writeLatin1CStr(sequence, buffer);
+				} else {
+					writeLatin1(sequence, buffer);
+				}
+				break;
+			default:
+				if(isCStr) {
+					writeCStr(sequence, buffer);
+				} else {
+					write(sequence, buffer);
+				}
+				break;
+		}
+	}
+	
+	@Override
+	public int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException {
+		final Field field = accessor.getField();
+		final Encoding encoding = getEncoding(field);
+		final int lengthSize = isCStr(field) ? getTerminatorSize(encoding) : getLengthSize(object, field); //null-terminator or length
+		
+		if(field.getType().isArray()) {
+			final f3.commons.serializer.types.Array arrayAnn = field.getAnnotation(f3.commons.serializer.types.Array.class);
+			final CharSequence[] sequences = (CharSequence[]) accessor.get(object);
+			final int length = arrayAnn != null && arrayAnn.length() != -1 ? arrayAnn.length() : sequences.length;
+			int size = 0;
+			for(int i = 0; i < length; i++) {
+				size += getPrefixedLength(sequences[i], encoding, lengthSize);
 			}
-		} else {
-			final CharSequence sequence = (CharSequence) field.get(object);
-			if(isCStr) {
-				writeCStr(sequence, buffer);
-			} else {
-				writeLength(object, field, buffer, sequence.length());
-				write(sequence, buffer);
-			}
+			return size;
 		}
+		
+		return getPrefixedLength((CharSequence) accessor.get(object), encoding, lengthSize);
 	}
 	
 	@Override
 	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
-		field.setAccessible(true);
-		
+		deserialize(object, FieldAccessor.of(field), buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		final Field field = accessor.getField();
 		final Class<?> type = field.getType();
 		final boolean isCStr = isCStr(field);
+		final Encoding encoding = getEncoding(field);
+		final boolean intern = isIntern(field);
 		
 		if(type.isArray()) {
-			final Object[] array = (Object[]) field.get(object);
+			final Object[] array = (Object[]) accessor.get(object);
 			final f3.commons.serializer.types.Array arrayAnn = field.getAnnotation(f3.commons.serializer.types.Array.class);
 			final int length = arrayAnn != null && arrayAnn.length() != -1 ? arrayAnn.length() : array.length;
+			final boolean isHolder = type.getComponentType() == StringBuilder.class;
 			for(int i = 0; i < length; i++) {
-				if(isCStr) {
-					array[i] = readCStr(buffer);
-				} else {
-					final int sequenceLength = readLength(object, field, buffer);
-					array[i] = read(buffer, sequenceLength);
-				}
+				array[i] = readSequence(object, field, buffer, isCStr, encoding, intern, (CharSequence) array[i], isHolder);
 			}
 		} else {
-			if(isCStr) {
-				field.set(object, readCStr(buffer));
-			} else {
-				final int sequenceLength = readLength(object, field, buffer);
-				field.set(object, read(buffer, sequenceLength));
+			final CharSequence current = (CharSequence) accessor.get(object);
+			final CharSequence sequence = readSequence(object, field, buffer, isCStr, encoding, intern, current, type == StringBuilder.class);
+			if(sequence != current) {
+				accessor.set(object, sequence);
+			}
+		}
+	}
+	
+	/** Sequence is decoded into current StringBuilder value or into new StringBuilder for StringBuilder fields, 
+	 * otherwise new String is created */
+	private static CharSequence readSequence(Object object, Field field, ByteBuffer buffer, boolean isCStr, Encoding encoding, boolean intern, 
+			CharSequence current, boolean isHolder) {
+		if(isHolder || current instanceof StringBuilder) {
+			final StringBuilder holder = current instanceof StringBuilder ? (StringBuilder) current : null;
+			return isCStr ? readCStrInto(buffer, encoding, holder) : readInto(buffer, readLength(object, field, buffer), encoding, holder);
+		} else if(intern) {
+			return isCStr ? readInternedCStr(buffer, encoding) : readInterned(buffer, readLength(object, field, buffer), encoding);
+		} else if(isCStr) {
+			switch(encoding) {
+				case UTF8: return readUTF8CStr(buffer);
+				case LATIN1: return readLatin1CStr(buffer);
+				default: return readCStr(buffer);
 			}
 		}
+		
+		final int sequenceLength = readLength(object, field, buffer);
+		switch(encoding) {
+			case UTF8: return readUTF8(buffer, sequenceLength);
+			case LATIN1: return readLatin1(buffer, sequenceLength);
+			default: return read(buffer, sequenceLength);
+		}
 	}
 	
 	private static boolean isCStr(Field field) {
@@ -131,6 +218,34 @@ public class UTF8Converter implements IConverter {
 		return utf8Ann != null ? utf8Ann.nullTerminate() : true;
 	}
 	
+	private static boolean isIntern(Field field) {
+		final UTF8 utf8Ann = field.getAnnotation(UTF8.class);
+		return utf8Ann != null && utf8Ann.intern();
+	}
+	
+	private static Encoding getEncoding(Field field) {
+		final UTF8 utf8Ann = field.getAnnotation(UTF8.class);
+		return utf8Ann != null ? utf8Ann.encoding() : Encoding.UTF16;
+	}
+	
+	/** @return count of bytes in encoding of sequence without length or null-terminator */
+	public static int getEncodedLength(CharSequence sequence, Encoding encoding) {
+		switch(encoding) {
+			case UTF8: return getUTF8Length(sequence);
+			case LATIN1: return sequence.length();
+			default: return sequence.length() << 1;
+		}
+	}
+	
+	private static int getPrefixedLength(CharSequence sequence, Encoding encoding, int lengthSize) {
+		final int encodedLength = getEncodedLength(sequence, encoding);
+		return encodedLength + (lengthSize == ConverterUtils.VARIABLE_SIZE ? VarIntConverter.getVarIntSize(encodedLength) : lengthSize);
+	}
+	
+	public static int getTerminatorSize(Encoding encoding) {
+		return encoding == Encoding.UTF16 ? 2 : 1;
+	}
+	
 	private static int readLength(Object object, Field field, ByteBuffer buffer) {
 		final UTF8 utf8Ann = field.getAnnotation(UTF8.class);
 		Class<? extends Annotation> lengthType = utf8Ann != null ? utf8Ann.lengthType() : Dword.class; 
@@ -150,6 +265,8 @@ public class UTF8Converter implements IConverter {
 			}
 		} else if(lengthType == Real.class) {
 			sequenceLength = (int) buffer.getDouble();
+		} else if(lengthType == VarInt.class) {
+			sequenceLength = VarIntConverter.getVarInt(buffer);
 		} else {
 			throw new IllegalArgumentException("UTF8 annotation in " + object.getClass().getCanonicalName() + "::" + field.getName()
 				+ " have unsupported length type");
@@ -162,9 +279,17 @@ public class UTF8Converter implements IConverter {
 		return sequenceLength;
 	}
 	
+	private static int getLengthSize(Object object, Field field) {
+		final UTF8 utf8Ann = field.getAnnotation(UTF8.class);
+		final int size = getDataSize(utf8Ann != null ? utf8Ann.lengthType() : Dword.class);
+		if(size < 0 && size != ConverterUtils.VARIABLE_SIZE) {
+			throw new IllegalArgumentException("UTF8 annotation in " + object.getClass().getCanonicalName() + "::" + field.getName()
+				+ " have unsupported length type");
+		}
+		return size;
+	}
+	
 	private static void writeLength(Object object, Field field, ByteBuffer buffer, int length) {
-		length <<= 1; //swift to jbyte count
-		
 		final UTF8 utf8Ann = field.getAnnotation(UTF8.class);
 		Class<? extends Annotation> lengthType = utf8Ann != null ? utf8Ann.lengthType() : Dword.class; 
 		
@@ -178,41 +303,380 @@ public class UTF8Converter implements IConverter {
 			buffer.putLong(length);
 		} else if(lengthType == Real.class) {
 			buffer.putDouble(length);
+		} else if(lengthType == VarInt.class) {
+			VarIntConverter.putVarInt(buffer, length);
 		} else {
 			throw new IllegalArgumentException("UTF8 annotation in " + object.getClass().getCanonicalName() + "::" + field.getName()
 				+ " have unsupported length type");
 		}
 	}
 	
-	private static String readCStr(ByteBuffer buffer) {
-		char ch;
-		final StringBuilder sb = new StringBuilder(32);
-		while((ch = buffer.getChar()) != '\000') {
-			sb.append(ch);
-		}
-		return sb.toString();
+	public static String readCStr(ByteBuffer buffer) {
+		final int end = findCharZero(buffer);
+		final String value = read(buffer, end - buffer.position());
+		buffer.position(end + 2); //null-terminator
+		return value;
 	}
 	
-	private static String read(ByteBuffer buffer, int length) {
+	/** Reads UTF-16 sequence of specified byte length by absolute index, without char view of buffer */
+	public static String read(ByteBuffer buffer, int length) {
 		length >>= 1; //shift to jchar size
-		final StringBuilder sb = new StringBuilder(length);
+		if(buffer.remaining() < length << 1) {
+			throw new BufferUnderflowException();
+		}
+		
+		final int position = buffer.position();
+		final char[] chars = getCharScratch(length);
 		for(int i = 0; i < length; i++) {
-			sb.append(buffer.getChar());
+			chars[i] = buffer.getChar(position + (i << 1));
 		}
-		return sb.toString();
+		buffer.position(position + (length << 1));
+		return new String(chars, 0, length);
 	}
 	
-	private static void writeCStr(CharSequence sequence, ByteBuffer buffer) {
-		for(int j = 0; j < sequence.length(); j++) {
-			buffer.putChar(sequence.charAt(j));
-		}
+	public static void writeCStr(CharSequence sequence, ByteBuffer buffer) {
+		write(sequence, buffer);
 		buffer.putChar('\000');
 	}
 	
-	private static void write(CharSequence sequence, ByteBuffer buffer) {
-		for(int j = 0; j < sequence.length(); j++) {
-			buffer.putChar(sequence.charAt(j));
+	/** Writes sequence as UTF-16 by absolute index, without char view of buffer */
+	public static void write(CharSequence sequence, ByteBuffer buffer) {
+		final int length = sequence.length();
+		if(buffer.remaining() < length << 1) {
+			throw new BufferOverflowException();
 		}
+		
+		final int position = buffer.position();
+		for(int i = 0; i < length; i++) {
+			buffer.putChar(position + (i << 1), sequence.charAt(i));
+		}
+		buffer.position(position + (length << 1));
 	}
-
+	
+	public static String readLatin1CStr(ByteBuffer buffer) {
+		final int end = findZero(buffer);
+		final String value = readLatin1(buffer, end - buffer.position());
+		buffer.get(); //null-terminator
+		return value;
+	}
+	
+	/** Reads ISO-8859-1 sequence of specified byte length */
+	public static String readLatin1(ByteBuffer buffer, int length) {
+		return readBytes(buffer, length, StandardCharsets.ISO_8859_1);
+	}
+	
+	public static void writeLatin1CStr(CharSequence sequence, ByteBuffer buffer) {
+		writeLatin1(sequence, buffer);
+		buffer.put((byte) 0);
+	}
+	
+	/** Writes sequence as ISO-8859-1 by single bulk put, chars outside of Latin-1 are written as '?' */
+	public static void writeLatin1(CharSequence sequence, ByteBuffer buffer) {
+		final int length = sequence.length();
+		if(buffer.remaining() < length) {
+			throw new BufferOverflowException();
+		}
+		
+		final char[] chars = getCharScratch(length);
+		if(sequence instanceof String) {
+			((String) sequence).getChars(0, length, chars, 0);
+		} else {
+			for(int i = 0; i < length; i++) {
+				chars[i] = sequence.charAt(i);
+			}
+		}
+		
+		final byte[] bytes;
+		final int offset;
+		if(buffer.hasArray()) {
+			bytes = buffer.array();
+			offset = buffer.arrayOffset() + buffer.position();
+		} else {
+			bytes = getByteScratch(length);
+			offset = 0;
+		}
+		
+		for(int i = 0; i < length; i++) {
+			final char ch = chars[i];
+			bytes[offset + i] = (byte) (ch <= 0xff ? ch : '?');
+		}
+		
+		if(buffer.hasArray()) {
+			buffer.position(buffer.position() + length);
+		} else {
+			buffer.put(bytes, 0, length);
+		}
+	}
+	
+	/** @return count of bytes in UTF-8 encoding of sequence */
+	public static int getUTF8Length(CharSequence sequence) {
+		final int length = sequence.length();
+		int size = length;
+		for(int i = 0; i < length; i++) {
+			final char ch = sequence.charAt(i);
+			if(ch < 0x80) {
+				continue;
+			} else if(ch < 0x800) {
+				size += 1;
+			} else if(!Character.isSurrogate(ch)) {
+				size += 2;
+			} else if(Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(sequence.charAt(i + 1))) {
+				size += 2; //4 bytes per 2 chars
+				i++;
+			} //unpaired surrogate is written as '?'
+		}
+		return size;
+	}
+	
+	public static void writeUTF8CStr(CharSequence sequence, ByteBuffer buffer) {
+		writeUTF8(sequence, buffer);
+		buffer.put((byte) 0);
+	}
+	
+	/** Writes sequence as UTF-8, leading ASCII chars of heap buffers are stored directly into backing array */
+	public static void writeUTF8(CharSequence sequence, ByteBuffer buffer) {
+		final int length = sequence.length();
+		int i = 0;
+		if(buffer.hasArray()) {
+			final byte[] array = buffer.array();
+			final int offset = buffer.arrayOffset() + buffer.position();
+			final int limit = Math.min(length, buffer.remaining());
+			for(char ch; i < limit && (ch = sequence.charAt(i)) < 0x80; i++) {
+				array[offset + i] = (byte) ch;
+			}
+			buffer.position(buffer.position() + i);
+		}
+		
+		for(; i < length; i++) {
+			final char ch = sequence.charAt(i);
+			if(ch < 0x80) {
+				buffer.put((byte) ch);
+			} else if(ch < 0x800) {
+				buffer.put((byte) (0xc0 | (ch >> 6)));
+				buffer.put((byte) (0x80 | (ch & 0x3f)));
+			} else if(!Character.isSurrogate(ch)) {
+				buffer.put((byte) (0xe0 | (ch >> 12)));
+				buffer.put((byte) (0x80 | ((ch >> 6) & 0x3f)));
+				buffer.put((byte) (0x80 | (ch & 0x3f)));
+			} else if(Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(sequence.charAt(i + 1))) {
+				final int codePoint = Character.toCodePoint(ch, sequence.charAt(++i));
+				buffer.put((byte) (0xf0 | (codePoint >> 18)));
+				buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+				buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+				buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+			} else {
+				buffer.put((byte) '?');
+			}
+		}
+	}
+	
+	public static String readUTF8CStr(ByteBuffer buffer) {
+		final int end = findZero(buffer);
+		final String value = readUTF8(buffer, end - buffer.position());
+		buffer.get(); //null-terminator
+		return value;
+	}
+	
+	/** Reads UTF-8 sequence of specified byte length */
+	public static String readUTF8(ByteBuffer buffer, int length) {
+		return readBytes(buffer, length, StandardCharsets.UTF_8);
+	}
+	
+	public static String readInternedCStr(ByteBuffer buffer, Encoding encoding) {
+		final int end = encoding == Encoding.UTF16 ? findCharZero(buffer) : findZero(buffer);
+		final String value = readInterned(buffer, end - buffer.position(), encoding);
+		buffer.position(end + getTerminatorSize(encoding));
+		return value;
+	}
+	
+	/** Reads sequence of specified byte length through shared cache of short strings, see {@link UTF8#intern()} */
+	public static String readInterned(ByteBuffer buffer, int length, Encoding encoding) {
+		return StringCache.getInstance().read(buffer, length, encoding);
+	}
+	
+	public static StringBuilder readCStrInto(ByteBuffer buffer, Encoding encoding, StringBuilder holder) {
+		final int end = encoding == Encoding.UTF16 ? findCharZero(buffer) : findZero(buffer);
+		holder = readInto(buffer, end - buffer.position(), encoding, holder);
+		buffer.position(end + getTerminatorSize(encoding));
+		return holder;
+	}
+	
+	/** Decodes sequence of specified byte length into holder without allocation of strings.
+	 * @param holder reused holder, its content is replaced. If null new holder is created
+	 * @return holder */
+	public static StringBuilder readInto(ByteBuffer buffer, int length, Encoding encoding, StringBuilder holder) {
+		if(buffer.remaining() < length) {
+			throw new BufferUnderflowException();
+		}
+		
+		if(holder == null) {
+			holder = new StringBuilder(length);
+		} else {
+			holder.setLength(0);
+		}
+		
+		final int position = buffer.position();
+		switch(encoding) {
+			case UTF8:
+				decodeUTF8(buffer, position, position + length, holder);
+				break;
+			case LATIN1:
+				for(int i = 0; i < length; i++) {
+					holder.append((char) (buffer.get(position + i) & 0xff));
+				}
+				break;
+			default:
+				final int count = length >> 1;
+				for(int i = 0; i < count; i++) {
+					holder.append(buffer.getChar(position + (i << 1)));
+				}
+				length = count << 1;
+				break;
+		}
+		buffer.position(position + length);
+		return holder;
+	}
+	
+	/** Decodes UTF-8 bytes from absolute range of buffer, malformed sequences are decoded as U+FFFD */
+	private static void decodeUTF8(ByteBuffer buffer, int index, int end, StringBuilder holder) {
+		while(index < end) {
+			final int b = buffer.get(index++);
+			if(b >= 0) {
+				holder.append((char) b);
+				continue;
+			}
+			
+			int codePoint;
+			final int extra;
+			final int min;
+			if((b & 0xe0) == 0xc0) {
+				codePoint = b & 0x1f;
+				extra = 1;
+				min = 0x80;
+			} else if((b & 0xf0) == 0xe0) {
+				codePoint = b & 0x0f;
+				extra = 2;
+				min = 0x800;
+			} else if((b & 0xf8) == 0xf0) {
+				codePoint = b & 0x07;
+				extra = 3;
+				min = 0x10000;
+			} else {
+				holder.append(REPLACEMENT);
+				continue;
+			}
+			
+			int i = 0;
+			for(; i < extra && index < end; i++, index++) {
+				final int c = buffer.get(index);
+				if((c & 0xc0) != 0x80) {
+					break;
+				}
+				codePoint = (codePoint << 6) | (c & 0x3f);
+			}
+			
+			if(i < extra || codePoint < min || codePoint > Character.MAX_CODE_POINT 
+					|| (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+				holder.append(REPLACEMENT);
+			} else {
+				holder.appendCodePoint(codePoint);
+			}
+		}
+	}
+	
+	/** Reads sequence of specified byte length without cache */
+	static String decode(ByteBuffer buffer, int length, Encoding encoding) {
+		switch(encoding) {
+			case UTF8: return readUTF8(buffer, length);
+			case LATIN1: return readLatin1(buffer, length);
+			default: return read(buffer, length);
+		}
+	}
+	
+	/** @return absolute index of first zero byte starting from buffer position, scans 8 bytes per step */
+	private static int findZero(ByteBuffer buffer) {
+		final int limit = buffer.limit();
+		final boolean isLE = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+		int index = buffer.position();
+		for(; index + 8 <= limit; index += 8) {
+			final long word = buffer.getLong(index);
+			//0x80 in each zero byte and nothing else
+			final long zeros = ~(((word & BYTE_LOW_BITS) + BYTE_LOW_BITS) | word | BYTE_LOW_BITS);
+			if(zeros != 0) {
+				return index + ((isLE ? Long.numberOfTrailingZeros(zeros) : Long.numberOfLeadingZeros(zeros)) >>> 3);
+			}
+		}
+		
+		for(; index < limit; index++) {
+			if(buffer.get(index) == 0) {
+				return index;
+			}
+		}
+		throw new BufferUnderflowException();
+	}
+	
+	/** @return absolute index of first zero char starting from buffer position, scans 4 chars per step */
+	private static int findCharZero(ByteBuffer buffer) {
+		final int limit = buffer.limit();
+		final boolean isLE = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+		int index = buffer.position();
+		for(; index + 8 <= limit; index += 8) {
+			final long word = buffer.getLong(index);
+			//0x8000 in each zero char and nothing else
+			final long zeros = ~(((word & CHAR_LOW_BITS) + CHAR_LOW_BITS) | word | CHAR_LOW_BITS);
+			if(zeros != 0) {
+				return index + (((isLE ? Long.numberOfTrailingZeros(zeros) : Long.numberOfLeadingZeros(zeros)) >>> 4) << 1);
+			}
+		}
+		
+		for(; index + 2 <= limit; index += 2) {
+			if(buffer.getChar(index) == '\000') {
+				return index;
+			}
+		}
+		throw new BufferUnderflowException();
+	}
+	
+	/** Decodes bytes directly from backing array of heap buffers or through scratch array */
+	private static String readBytes(ByteBuffer buffer, int length, Charset charset) {
+		if(buffer.remaining() < length) {
+			throw new BufferUnderflowException();
+		}
+		
+		if(buffer.hasArray()) {
+			final int position = buffer.position();
+			final String value = new String(buffer.array(), buffer.arrayOffset() + position, length, charset);
+			buffer.position(position + length);
+			return value;
+		}
+		
+		final byte[] bytes = getByteScratch(length);
+		buffer.get(bytes, 0, length);
+		return new String(bytes, 0, length, charset);
+	}
+	
+	private static char[] getCharScratch(int length) {
+		if(length > MAX_SCRATCH_SIZE) {
+			return new char[length];
+		}
+		
+		char[] chars = charScratch.get();
+		if(chars.length < length) {
+			charScratch.set(chars = new char[Math.min(MAX_SCRATCH_SIZE, Math.max(length, chars.length << 1))]);
+		}
+		return chars;
+	}
+	
+	private static byte[] getByteScratch(int length) {
+		if(length > MAX_SCRATCH_SIZE) {
+			return new byte[length];
+		}
+		
+		byte[] bytes = byteScratch.get();
+		if(bytes.length < length) {
+			byteScratch.set(bytes = new byte[Math.min(MAX_SCRATCH_SIZE, Math.max(length, bytes.length << 1))]);
+		}
+		return bytes;
+	}
+	
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import static f3.commons.serializer.converters.ConverterUtils.getArrayLength;
+import static f3.commons.serializer.converters.ConverterUtils.getIntegralArrayReadStrategy;
+import static f3.commons.serializer.converters.ConverterUtils.getIntegralReadStrategy;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
+import f3.commons.serializer.IConverter;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.VarInt;
+import lombok.Getter;
+
+/**
+ * Long, float and double values are written as 64-bit varint, other values as 32-bit varint.
+ * @author n3k0nation
+ *
+ */
+public class VarIntConverter implements IStrategyConverter {
+	
+	@Getter private final static IConverter instance = new VarIntConverter(VarInt.class);
+	
+	private final Class<? extends Annotation> dataType;
+	
+	VarIntConverter(Class<? extends Annotation> dataType) {
+		this.dataType = dataType;
+	}
+	
+	@Override
+	public boolean isSupport(Field field) {
+		if(!field.isAnnotationPresent(dataType)) {
+			return false;
+		}
+		
+		final Class<?> type = field.getType();
+		return isSupported(type.isArray() ? type.getComponentType() : type);
+	}
+	
+	private boolean isSupported(Class<?> type) {
+		return type.equals(byte.class) || type.equals(Byte.class) 
+				|| type.equals(char.class) || type.equals(Character.class)
+				|| type.equals(short.class) || type.equals(Short.class)
+				|| type.equals(int.class) || type.equals(Integer.class)
+				|| type.equals(long.class) || type.equals(Long.class)
+				|| type.equals(float.class) || type.equals(Float.class)
+				|| type.equals(double.class) || type.equals(Double.class)
+				|| type.equals(boolean.class) || type.equals(Boolean.class);
+	}
+	
+	@Override
+	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		serialize(object, FieldAccessor.of(field), buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		FieldStrategies.of(this, accessor.getField()).writeStrategy.write(object, accessor, buffer);
+	}
+	
+	@Override
+	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		deserialize(object, FieldAccessor.of(field), buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		FieldStrategies.of(this, accessor.getField()).readStrategy.read(object, accessor, buffer);
+	}
+	
+	/** Variable size, see {@link #sizeOf(Object, FieldAccessor, Serializer)} */
+	@Override
+	public int getDataSize() {
+		return ConverterUtils.VARIABLE_SIZE;
+	}
+	
+	@Override
+	public int getFixedSize(Field field, Serializer serializer) {
+		return -1;
+	}
+	
+	@Override
+	public int sizeOf(Object object, FieldAccessor accessor, Serializer serializer) throws ReflectiveOperationException {
+		final Field field = accessor.getField();
+		final Class<?> type = field.getType();
+		if(type.equals(int[].class)) {
+			final int[] array = (int[]) accessor.get(object);
+			final int length = getArrayLength(array, field);
+			int size = 0;
+			for(int i = 0; i < length; i++) {
+				size += sizeOfInt(array[i]);
+			}
+			return size;
+		} else if(type.equals(long[].class)) {
+			final long[] array = (long[]) accessor.get(object);
+			final int length = getArrayLength(array, field);
+			int size = 0;
+			for(int i = 0; i < length; i++) {
+				size += sizeOfLong(array[i]);
+			}
+			return size;
+		} else if(type.isArray()) {
+			final Object array = accessor.get(object);
+			final int length = getArrayLength(array, field);
+			int size = 0;
+			for(int i = 0; i < length; i++) {
+				size += sizeOfValue(Array.get(array, i));
+			}
+			return size;
+		}
+		return sizeOfValue(accessor.get(object));
+	}
+	
+	private int sizeOfValue(Object value) {
+		if(value == null || value instanceof Boolean) {
+			return 1;
+		} else if(value instanceof Character) {
+			return sizeOfInt((Character) value);
+		} else if(isLong(value.getClass())) {
+			return sizeOfLong(((Number) value).longValue());
+		}
+		return sizeOfInt(((Number) value).intValue());
+	}
+	
+	int sizeOfInt(int value) {
+		return getVarIntSize(value);
+	}
+	
+	int sizeOfLong(long value) {
+		return getVarLongSize(value);
+	}
+	
+	void writeInt(ByteBuffer buffer, int value) {
+		putVarInt(buffer, value);
+	}
+	
+	void writeLong(ByteBuffer buffer, long value) {
+		putVarLong(buffer, value);
+	}
+	
+	int readInt(ByteBuffer buffer) {
+		return getVarInt(buffer);
+	}
+	
+	long readLong(ByteBuffer buffer) {
+		return getVarLong(buffer);
+	}
+	
+	/** @return true if value of type is written as 64-bit varint */
+	private static boolean isLong(Class<?> type) {
+		return type.equals(long.class) || type.equals(Long.class) 
+				|| type.equals(float.class) || type.equals(Float.class) 
+				|| type.equals(double.class) || type.equals(Double.class);
+	}
+	
+	@Override
+	public IWriteStrategy getWriteStrategy(Class<?> type) {
+		if(type.isArray()) {
+			return getWriteArrayStrategy(type);
+		}
+		return (value, buffer) -> {
+			if(value == null) {
+				buffer.put((byte) 0);
+			} else if(value instanceof Boolean) {
+				buffer.put((byte) ((Boolean) value ? 1 : 0));
+			} else if(value instanceof Character) {
+				writeInt(buffer, (Character) value);
+			} else if(isLong(value.getClass())) {
+				writeLong(buffer, ((Number) value).longValue());
+			} else {
+				writeInt(buffer, ((Number) value).intValue());
+			}
+		};
+	}
+	
+	@Override
+	public IIntWriteStrategy getIntWriteStrategy() {
+		return (value, buffer) -> writeInt(buffer, value);
+	}
+	
+	@Override
+	public ILongWriteStrategy getLongWriteStrategy() {
+		return (value, buffer) -> writeLong(buffer, value);
+	}
+	
+	@Override
+	public IDoubleWriteStrategy getDoubleWriteStrategy() {
+		return (value, buffer) -> writeLong(buffer, (long) value);
+	}
+	
+	@Override
+	public IBooleanWriteStrategy getBooleanWriteStrategy() {
+		return (value, buffer) -> buffer.put((byte) (value ? 1 : 0));
+	}
+	
+	@Override
+	public IReadStrategy getReadStrategy(Class<?> type) {
+		if(type.isArray()) {
+			if(isLong(type.getComponentType())) {
+				return getIntegralArrayReadStrategy(type, this::readLong, this::readLong);
+			}
+			return getIntegralArrayReadStrategy(type, this::readInt, this::readInt);
+		} else if(isLong(type)) {
+			return getIntegralReadStrategy(type, this::readLong, this::readLong);
+		}
+		return getIntegralReadStrategy(type, this::readInt, this::readInt);
+	}
+	
+	/** @return encoded size of 32-bit varint */
+	public static int getVarIntSize(int value) {
+		return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+	}
+	
+	/** @return encoded size of 64-bit varint */
+	public static int getVarLongSize(long value) {
+		return (70 - Long.numberOfLeadingZeros(value | 1)) / 7;
+	}
+	
+	/** Writes value as unsigned 32-bit varint */
+	public static void putVarInt(ByteBuffer buffer, int value) {
+		while((value & ~0x7f) != 0) {
+			buffer.put((byte) (value | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	/** Writes value as unsigned 64-bit varint */
+	public static void putVarLong(ByteBuffer buffer, long value) {
+		while((value & ~0x7fL) != 0) {
+			buffer.put((byte) (value | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	/** Reads 32-bit varint
+	 * @exception IllegalArgumentException if varint is longer than 5 bytes */
+	public static int getVarInt(ByteBuffer buffer) throws IllegalArgumentException {
+		int b = buffer.get();
+		if(b >= 0) {
+			return b;
+		}
+		
+		int value = b & 0x7f;
+		for(int shift = 7; shift < 35; shift += 7) {
+			b = buffer.get();
+			value |= (b & 0x7f) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+	
+	/** Reads 64-bit varint
+	 * @exception IllegalArgumentException if varint is longer than 10 bytes */
+	public static long getVarLong(ByteBuffer buffer) throws IllegalArgumentException {
+		int b = buffer.get();
+		if(b >= 0) {
+			return b;
+		}
+		
+		long value = b & 0x7f;
+		for(int shift = 7; shift < 70; shift += 7) {
+			b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+	
+}
@@ -15,9 +15,10 @@
  */
 package f3.commons.serializer.converters;
 
-import static f3.commons.serializer.converters.ConverterUtils.getArrayLength;
-import static f3.commons.serializer.converters.ConverterUtils.setArrayType;
-import static f3.commons.serializer.converters.ConverterUtils.setSimpleType;
+import static f3.commons.serializer.converters.ConverterUtils.getBulkReadStrategy;
+import static f3.commons.serializer.converters.ConverterUtils.getBulkWriteStrategy;
+import static f3.commons.serializer.converters.ConverterUtils.getIntegralArrayReadStrategy;
+import static f3.commons.serializer.converters.ConverterUtils.getIntegralReadStrategy;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
@@ -25,6 +26,7 @@ import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.IConverter;
 import f3.commons.serializer.Serializer;
 import f3.commons.serializer.types.DataType;
@@ -76,35 +78,34 @@ public class WordConverter implements IStrategyConverter {
 
 	@Override
 	public void serialize(Object object, Field field, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
-		field.setAccessible(true);
-		
-		final IWriteStrategy strategy = getWriteStrategy(field.getType());
-		strategy.write(field.get(object), buffer);
+		serialize(object, FieldAccessor.of(field), buffer, serializer);
+	}
+	
+	@Override
+	public void serialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Serializer serializer) throws ReflectiveOperationException, BufferOverflowException {
+		FieldStrategies.of(this, accessor.getField()).writeStrategy.write(object, accessor, buffer);
 	}
 	
 	@Override
 	public void deserialize(Object object, Field field, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
-		field.setAccessible(true);
-		
-		final Class<?> type = field.getType();
-		
-		if(type.isArray()) {
-			final Object array = field.get(object);
-			final int length = getArrayLength(array, field);
-			Short[] values = new Short[length];
-			for(int i = 0; i < length; i++) {
-				values[i] = buffer.getShort();
-			}
-			setArrayType(object, field, values, array);
-		} else {
-			final Short value = buffer.getShort();
-			setSimpleType(object, field, value);
-		}
+		deserialize(object, FieldAccessor.of(field), buffer, deserializer);
+	}
+	
+	@Override
+	public void deserialize(Object object, FieldAccessor accessor, ByteBuffer buffer, Deserializer deserializer) throws ReflectiveOperationException, BufferOverflowException {
+		FieldStrategies.of(this, accessor.getField()).readStrategy.read(object, accessor, buffer);
+	}
+	
+	@Override
+	public int getDataSize() {
+		return 2;
 	}
 	
 	@Override
 	public IWriteStrategy getWriteStrategy(Class<?> type) {
-		if(type.isArray()) {
+		if(type.equals(short[].class) || type.equals(char[].class)) {
+			return getBulkWriteStrategy(type);
+		} else if(type.isArray()) {
 			return getWriteArrayStrategy(type);
 		} else if(type.equals(Boolean.class)) {
 			return (value, buffer) -> buffer.putShort((short) (value == Boolean.TRUE ? 1 : 0));
@@ -116,5 +117,35 @@ public class WordConverter implements IStrategyConverter {
 			return (value, buffer) -> buffer.putShort(value == null ? 0 : ((Number) value).shortValue());
 		}
 	}
-
+	
+	@Override
+	public IIntWriteStrategy getIntWriteStrategy() {
+		return (value, buffer) -> buffer.putShort((short) value);
+	}
+	
+	@Override
+	public ILongWriteStrategy getLongWriteStrategy() {
+		return (value, buffer) -> buffer.putShort((short) value);
+	}
+	
+	@Override
+	public IDoubleWriteStrategy getDoubleWriteStrategy() {
+		return (value, buffer) -> buffer.putShort((short) value);
+	}
+	
+	@Override
+	public IBooleanWriteStrategy getBooleanWriteStrategy() {
+		return (value, buffer) -> buffer.putShort((short) (value ? 1 : 0));
+	}
+	
+	@Override
+	public IReadStrategy getReadStrategy(Class<?> type) {
+		if(type.equals(short[].class) || type.equals(char[].class)) {
+			return getBulkReadStrategy(type);
+		} else if(type.isArray()) {
+			return getIntegralArrayReadStrategy(type, buffer -> buffer.getShort(), buffer -> buffer.getShort());
+		}
+		return getIntegralReadStrategy(type, buffer -> buffer.getShort(), buffer -> buffer.getShort());
+	}
+	
 }
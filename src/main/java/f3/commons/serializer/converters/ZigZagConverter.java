@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.converters;
+
+import java.nio.ByteBuffer;
+
+import f3.commons.serializer.IConverter;
+import f3.commons.serializer.types.ZigZag;
+import lombok.Getter;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class ZigZagConverter extends VarIntConverter {
+	
+	@Getter private final static IConverter instance = new ZigZagConverter();
+	
+	private ZigZagConverter() {
+		super(ZigZag.class);
+	}
+	
+	@Override
+	int sizeOfInt(int value) {
+		return getVarIntSize(encode(value));
+	}
+	
+	@Override
+	int sizeOfLong(long value) {
+		return getVarLongSize(encode(value));
+	}
+	
+	@Override
+	void writeInt(ByteBuffer buffer, int value) {
+		putVarInt(buffer, encode(value));
+	}
+	
+	@Override
+	void writeLong(ByteBuffer buffer, long value) {
+		putVarLong(buffer, encode(value));
+	}
+	
+	@Override
+	int readInt(ByteBuffer buffer) {
+		return decode(getVarInt(buffer));
+	}
+	
+	@Override
+	long readLong(ByteBuffer buffer) {
+		return decode(getVarLong(buffer));
+	}
+	
+	public static int encode(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+	
+	public static long encode(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+	
+	public static int decode(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	public static long decode(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+import f3.commons.serializer.types.Opcode;
+
+/**
+ * Generates {@link f3.commons.serializer.ICodec} for each {@link Opcode} class at compile time.
+ * Generated codecs are picked up by {@link f3.commons.serializer.Serializer} and {@link f3.commons.serializer.Deserializer} automatically.
+ * Processor is not registered in main jar, it's enabled by <code>processor</code> classifier artifact on annotation processor path
+ * or by <code>-processor f3.commons.serializer.processor.CodecProcessor</code>.
+ * Classes which can't be handled without reflection (private fields, boxed types, etc.) are skipped with note and use converters.
+ * @author n3k0nation
+ *
+ */
+@SupportedAnnotationTypes("f3.commons.serializer.types.Opcode")
+public class CodecProcessor extends AbstractProcessor {
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for(Element element : roundEnv.getElementsAnnotatedWith(Opcode.class)) {
+			if(!(element instanceof TypeElement)) {
+				continue;
+			}
+			
+			final TypeElement type = (TypeElement) element;
+			final CodecWriter writer = new CodecWriter(processingEnv, type);
+			final String source;
+			try {
+				source = writer.write();
+			} catch(UnsupportedTypeException e) {
+				processingEnv.getMessager().printMessage(Kind.NOTE, "Codec of " + type.getQualifiedName() + " is not generated: " + e.getMessage(), type);
+				continue;
+			}
+			
+			try(Writer out = processingEnv.getFiler().createSourceFile(writer.getCodecName(), type).openWriter()) {
+				out.write(source);
+			} catch(IOException e) {
+				processingEnv.getMessager().printMessage(Kind.ERROR, "Failed to write codec of " + type.getQualifiedName() + ": " + e.getMessage(), type);
+			}
+		}
+		return false;
+	}
+
+}
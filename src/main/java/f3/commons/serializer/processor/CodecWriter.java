@@ -0,0 +1,720 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.processor;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.DataType;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Encoding;
+import f3.commons.serializer.types.Inline;
+import f3.commons.serializer.types.Qword;
+import f3.commons.serializer.types.Real;
+import f3.commons.serializer.types.Transient;
+import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.Word;
+
+/**
+ * Writes source of codec for single class. Generated code produces the same wire format as converters.
+ * @author n3k0nation
+ *
+ */
+class CodecWriter {
+
+	/** Fixed-size data types in order of converters resolution */
+	private static enum Wire {
+		QWORD(Qword.class, TypeKind.LONG, "long", "putLong", "getLong", 3),
+		DWORD(Dword.class, TypeKind.INT, "int", "putInt", "getInt", 2),
+		WORD(Word.class, TypeKind.SHORT, "short", "putShort", "getShort", 1),
+		CHAR(Char.class, TypeKind.BYTE, "byte", "put", "get", 0),
+		REAL(Real.class, TypeKind.DOUBLE, "double", "putDouble", "getDouble", 3);
+		
+		final Class<? extends Annotation> annotation;
+		final TypeKind defaultKind;
+		final String javaType, put, get;
+		/** log2 of data-type size in bytes */
+		final int shift;
+		
+		private Wire(Class<? extends Annotation> annotation, TypeKind defaultKind, String javaType, String put, String get, int shift) {
+			this.annotation = annotation;
+			this.defaultKind = defaultKind;
+			this.javaType = javaType;
+			this.put = put;
+			this.get = get;
+			this.shift = shift;
+		}
+	}
+	
+	private final Elements elements;
+	private final Types types;
+	private final TypeElement type;
+	private final String packageName;
+	private final String codecSimpleName;
+	
+	private final StringBuilder serialize = new StringBuilder();
+	private final StringBuilder deserialize = new StringBuilder();
+	/** Size of value-dependent fields */
+	private final StringBuilder size = new StringBuilder();
+	/** Size of fields which doesn't depend on values */
+	private int fixedSize;
+	
+	CodecWriter(ProcessingEnvironment env, TypeElement type) {
+		elements = env.getElementUtils();
+		types = env.getTypeUtils();
+		this.type = type;
+		packageName = elements.getPackageOf(type).getQualifiedName().toString();
+		
+		final String binaryName = elements.getBinaryName(type).toString();
+		codecSimpleName = binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_') + "Codec";
+	}
+	
+	String getCodecName() {
+		return packageName.isEmpty() ? codecSimpleName : packageName + "." + codecSimpleName;
+	}
+	
+	String write() throws UnsupportedTypeException {
+		checkType();
+		
+		for(VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			final Set<Modifier> modifiers = field.getModifiers();
+			if(modifiers.contains(Modifier.TRANSIENT) || getAnnotation(field, Transient.class) != null) {
+				continue;
+			}
+			
+			if(modifiers.contains(Modifier.STATIC)) {
+				throw new UnsupportedTypeException("static field " + field.getSimpleName());
+			} else if(modifiers.contains(Modifier.PRIVATE)) {
+				throw new UnsupportedTypeException("private field " + field.getSimpleName());
+			}
+			
+			writeField(field);
+		}
+		
+		final String typeName = type.getQualifiedName().toString();
+		final StringBuilder sb = new StringBuilder();
+		if(!packageName.isEmpty()) {
+			sb.append("package ").append(packageName).append(";\n\n");
+		}
+		sb.append("/** Generated by ").append(CodecProcessor.class.getCanonicalName()).append(" */\n");
+		sb.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+		sb.append("public final class ").append(codecSimpleName).append(" implements f3.commons.serializer.ICodec<").append(typeName).append("> {\n\n");
+		
+		sb.append("\t@Override\n");
+		sb.append("\tpublic void serialize(").append(typeName).append(" object, java.nio.ByteBuffer buffer, f3.commons.serializer.Serializer serializer)");
+		sb.append(" throws ReflectiveOperationException, java.nio.BufferOverflowException {\n");
+		sb.append(serialize);
+		sb.append("\t}\n\n");
+		
+		sb.append("\t@Override\n");
+		sb.append("\tpublic ").append(typeName).append(" deserialize(java.nio.ByteBuffer buffer, f3.commons.serializer.Deserializer deserializer)");
+		sb.append(" throws ReflectiveOperationException, java.nio.BufferOverflowException {\n");
+		sb.append("\t\treturn deserialize(deserializer.newInstance(").append(typeName).append(".class), buffer, deserializer);\n");
+		sb.append("\t}\n\n");
+		
+		sb.append("\t@Override\n");
+		sb.append("\tpublic ").append(typeName).append(" deserialize(").append(typeName).append(" object, java.nio.ByteBuffer buffer, f3.commons.serializer.Deserializer deserializer)");
+		sb.append(" throws ReflectiveOperationException, java.nio.BufferOverflowException {\n");
+		sb.append(deserialize);
+		sb.append("\t\treturn object;\n");
+		sb.append("\t}\n\n");
+		
+		if(size.length() == 0) {
+			sb.append("\t@Override\n");
+			sb.append("\tpublic int getFixedSize() {\n");
+			sb.append("\t\treturn ").append(fixedSize).append(";\n");
+			sb.append("\t}\n\n");
+		}
+		
+		sb.append("\t@Override\n");
+		sb.append("\tpublic int sizeOf(").append(typeName).append(" object, f3.commons.serializer.Serializer serializer) throws ReflectiveOperationException {\n");
+		sb.append("\t\tint size = ").append(fixedSize).append(";\n");
+		sb.append(size);
+		sb.append("\t\treturn size;\n");
+		sb.append("\t}\n\n");
+		
+		sb.append("}\n");
+		return sb.toString();
+	}
+	
+	private void checkType() throws UnsupportedTypeException {
+		if(type.getKind() != ElementKind.CLASS) {
+			throw new UnsupportedTypeException("not a class");
+		} else if(type.getModifiers().contains(Modifier.ABSTRACT)) {
+			throw new UnsupportedTypeException("abstract class");
+		} else if(!type.getTypeParameters().isEmpty()) {
+			throw new UnsupportedTypeException("generic class");
+		} else if(type.getNestingKind() != NestingKind.TOP_LEVEL &&
+				(type.getNestingKind() != NestingKind.MEMBER || !type.getModifiers().contains(Modifier.STATIC))) {
+			throw new UnsupportedTypeException("not a top-level or static member class");
+		} else if(!isAccessible(type)) {
+			throw new UnsupportedTypeException("class is not accessible from package");
+		}
+	}
+	
+	private void writeField(VariableElement field) throws UnsupportedTypeException {
+		final String name = field.getSimpleName().toString();
+		final boolean isFinal = field.getModifiers().contains(Modifier.FINAL);
+		final TypeMirror fieldType = field.asType();
+		final boolean isArray = fieldType.getKind() == TypeKind.ARRAY;
+		final TypeMirror elementType = isArray ? ((ArrayType) fieldType).getComponentType() : fieldType;
+		final boolean hasDataType = hasDataType(field);
+		
+		for(Wire wire : Wire.values()) {
+			if(getAnnotation(field, wire.annotation) != null ? isNumeric(elementType) : !hasDataType && isDefault(fieldType, wire)) {
+				if(!elementType.getKind().isPrimitive()) {
+					throw new UnsupportedTypeException("boxed type of field " + name);
+				}
+				
+				if(isArray) {
+					writeArray(field, wire, (ArrayType) fieldType, isFinal);
+				} else {
+					serialize.append("\t\tbuffer.").append(wire.put).append('(').append(writeValue(wire, elementType, "object." + name)).append(");\n");
+					fixedSize += 1 << wire.shift;
+					if(!isFinal) {
+						deserialize.append("\t\tobject.").append(name).append(" = ").append(readValue(wire, elementType)).append(";\n");
+					}
+				}
+				return;
+			}
+		}
+		
+		final AnnotationMirror utf8 = getAnnotation(field, UTF8.class);
+		if(utf8 != null ? isCharSequence(elementType) : !hasDataType && isCharSequence(fieldType)) {
+			writeString(field, utf8, fieldType, isFinal);
+			return;
+		}
+		
+		if(getAnnotation(field, Inline.class) != null && !fieldType.getKind().isPrimitive()
+				&& (!isArray || !elementType.getKind().isPrimitive() && !isBoxed(elementType))) {
+			writeInline(field, fieldType, isFinal);
+			return;
+		}
+		
+		throw new UnsupportedTypeException("unsupported data-type of field " + name);
+	}
+	
+	private void writeArray(VariableElement field, Wire wire, ArrayType arrayType, boolean isFinal) throws UnsupportedTypeException {
+		final String name = field.getSimpleName().toString();
+		final TypeMirror component = arrayType.getComponentType();
+		
+		final String view = getBulkView(wire, component);
+		final Integer fixedLength = getFixedLength(field);
+		final String length = fixedLength != null ? fixedLength.toString() : "array.length"; //fixed-length array is written with declared count of elements
+		
+		if(fixedLength != null) {
+			fixedSize += fixedLength << wire.shift;
+		} else {
+			size.append("\t\tsize += object.").append(name).append(".length << ").append(wire.shift).append(";\n");
+		}
+		
+		serialize.append("\t\t{\n");
+		serialize.append("\t\t\tfinal ").append(arrayType).append(" array = object.").append(name).append(";\n");
+		if(fixedLength != null) {
+			serialize.append("\t\t\tif(array.length < ").append(fixedLength).append(") {\n");
+			serialize.append("\t\t\t\tthrow new IllegalArgumentException(\"Array in ").append(type.getQualifiedName()).append("::").append(name)
+				.append(" is shorter than fixed length ").append(fixedLength).append("\");\n");
+			serialize.append("\t\t\t}\n");
+		}
+		writeArrayIndex(field, "array.length");
+		if(view == null) {
+			serialize.append("\t\t\tfor(int i = 0; i < ").append(length).append("; i++) {\n");
+			serialize.append("\t\t\t\tbuffer.").append(wire.put).append('(').append(writeValue(wire, component, "array[i]")).append(");\n");
+			serialize.append("\t\t\t}\n");
+		} else if(view.isEmpty()) {
+			serialize.append("\t\t\tbuffer.put(array, 0, ").append(length).append(");\n");
+		} else {
+			serialize.append("\t\t\tbuffer.").append(view).append("().put(array, 0, ").append(length).append(");\n");
+			serialize.append("\t\t\tbuffer.position(buffer.position() + (").append(length).append(" << ").append(wire.shift).append("));\n");
+		}
+		serialize.append("\t\t}\n");
+		
+		if(!isFinal) {
+			deserialize.append("\t\t{\n");
+			readArrayIndex(field);
+			deserialize.append("\t\t\tfinal ").append(arrayType).append(" array = new ").append(component).append("[length];\n");
+			if(view == null) {
+				deserialize.append("\t\t\tfor(int i = 0; i < length; i++) {\n");
+				deserialize.append("\t\t\t\tarray[i] = ").append(readValue(wire, component)).append(";\n");
+				deserialize.append("\t\t\t}\n");
+			} else if(view.isEmpty()) {
+				deserialize.append("\t\t\tbuffer.get(array);\n");
+			} else {
+				deserialize.append("\t\t\tbuffer.").append(view).append("().get(array);\n");
+				deserialize.append("\t\t\tbuffer.position(buffer.position() + (length << ").append(wire.shift).append("));\n");
+			}
+			deserialize.append("\t\t\tobject.").append(name).append(" = array;\n");
+			deserialize.append("\t\t}\n");
+		}
+	}
+	
+	/**
+	 * @return name of typed buffer view for bulk copy of array, empty string for byte array
+	 * or null when component type does not match data-type width
+	 */
+	private static String getBulkView(Wire wire, TypeMirror component) {
+		final TypeKind kind = component.getKind();
+		if(kind == wire.defaultKind) {
+			switch(kind) {
+				case BYTE: return "";
+				case SHORT: return "asShortBuffer";
+				case INT: return "asIntBuffer";
+				case LONG: return "asLongBuffer";
+				case DOUBLE: return "asDoubleBuffer";
+				default: return null;
+			}
+		} else if(wire == Wire.WORD && kind == TypeKind.CHAR) {
+			return "asCharBuffer";
+		}
+		return null;
+	}
+	
+	private void writeString(VariableElement field, AnnotationMirror utf8, TypeMirror fieldType, boolean isFinal) throws UnsupportedTypeException {
+		final String name = field.getSimpleName().toString();
+		final boolean isArray = fieldType.getKind() == TypeKind.ARRAY;
+		final TypeMirror elementType = isArray ? ((ArrayType) fieldType).getComponentType() : fieldType;
+		final boolean isHolder = isSame(elementType, StringBuilder.class);
+		if(!isHolder && !isSame(elementType, String.class) && !isSame(elementType, CharSequence.class)) {
+			throw new UnsupportedTypeException("string field " + name + " is not String, StringBuilder or CharSequence");
+		}
+		final boolean isString = isSame(elementType, String.class);
+		
+		final boolean isCStr = utf8 == null || (Boolean) getValue(utf8, "nullTerminate");
+		final Encoding encoding = utf8 != null ? Encoding.valueOf(((VariableElement) getValue(utf8, "encoding")).getSimpleName().toString()) : Encoding.UTF16;
+		final boolean intern = utf8 != null && (Boolean) getValue(utf8, "intern");
+		final Wire lengthType = isCStr ? null : getWire(field, (TypeMirror) getValue(utf8, "lengthType"));
+		final int lengthSize = isCStr ? (encoding == Encoding.UTF16 ? 2 : 1) : 1 << lengthType.shift; //null-terminator or length
+		
+		if(!isArray) {
+			fixedSize += lengthSize;
+			size.append("\t\tsize += ").append(getStringSize("object." + name, encoding)).append(";\n");
+			serialize.append("\t\t{\n");
+			serialize.append("\t\t\tfinal CharSequence sequence = object.").append(name).append(";\n");
+			writeStringValue(lengthType, encoding, "\t\t\t");
+			serialize.append("\t\t}\n");
+			
+			if(!isFinal) {
+				deserialize.append("\t\t{\n");
+				readStringValue(field, lengthType, encoding, intern, isString, isHolder, "object." + name, "\t\t\t");
+				deserialize.append("\t\t}\n");
+			}
+			return;
+		}
+		
+		final Integer fixedLength = getFixedLength(field);
+		size.append("\t\t{\n");
+		size.append("\t\t\tfinal CharSequence[] array = object.").append(name).append(";\n");
+		size.append("\t\t\tfor(int i = 0; i < ").append(fixedLength != null ? fixedLength.toString() : "array.length").append("; i++) {\n");
+		size.append("\t\t\t\tsize += ").append(lengthSize).append(" + ").append(getStringSize("array[i]", encoding)).append(";\n");
+		size.append("\t\t\t}\n");
+		size.append("\t\t}\n");
+		
+		serialize.append("\t\t{\n");
+		serialize.append("\t\t\tfinal CharSequence[] array = object.").append(name).append(";\n");
+		writeArrayIndex(field, "array.length");
+		serialize.append("\t\t\tfor(int i = 0; i < ").append(fixedLength != null ? fixedLength.toString() : "array.length").append("; i++) {\n");
+		serialize.append("\t\t\t\tfinal CharSequence sequence = array[i];\n");
+		writeStringValue(lengthType, encoding, "\t\t\t\t");
+		serialize.append("\t\t\t}\n");
+		serialize.append("\t\t}\n");
+		
+		if(!isFinal) {
+			deserialize.append("\t\t{\n");
+			readArrayIndex(field);
+			deserialize.append("\t\t\tfinal ").append(fieldType).append(" array = new ").append(elementType).append("[length];\n");
+			deserialize.append("\t\t\tfor(int i = 0; i < length; i++) {\n");
+			readStringValue(field, lengthType, encoding, intern, isString, isHolder, "array[i]", "\t\t\t\t");
+			deserialize.append("\t\t\t}\n");
+			deserialize.append("\t\t\tobject.").append(name).append(" = array;\n");
+			deserialize.append("\t\t}\n");
+		}
+	}
+	
+	/** @return expression of encoded sequence size without length or null-terminator */
+	private static String getStringSize(String sequence, Encoding encoding) {
+		switch(encoding) {
+			case UTF8: return "f3.commons.serializer.converters.UTF8Converter.getUTF8Length(" + sequence + ")";
+			case LATIN1: return sequence + ".length()";
+			default: return "(" + sequence + ".length() << 1)";
+		}
+	}
+	
+	/** @return suffix of UTF8Converter read and write methods of encoding */
+	private static String getStringSuffix(Encoding encoding) {
+		switch(encoding) {
+			case UTF8: return "UTF8";
+			case LATIN1: return "Latin1";
+			default: return "";
+		}
+	}
+	
+	private void writeStringValue(Wire lengthType, Encoding encoding, String indent) {
+		final String suffix = getStringSuffix(encoding);
+		if(lengthType == null) {
+			serialize.append(indent).append("f3.commons.serializer.converters.UTF8Converter.write").append(suffix).append("CStr(sequence, buffer);\n");
+			return;
+		}
+		
+		final String length = getStringSize("sequence", encoding);
+		serialize.append(indent).append("buffer.").append(lengthType.put).append('(');
+		switch(lengthType) {
+			case CHAR: serialize.append("(byte) (").append(length).append(')'); break;
+			case WORD: serialize.append("(short) (").append(length).append(')'); break;
+			default: serialize.append(length); break;
+		}
+		serialize.append(");\n");
+		serialize.append(indent).append("f3.commons.serializer.converters.UTF8Converter.write").append(suffix).append("(sequence, buffer);\n");
+	}
+	
+	/**
+	 * StringBuilder targets are decoded in place, CharSequence targets are decoded in place if they hold StringBuilder.
+	 */
+	private void readStringValue(VariableElement field, Wire lengthType, Encoding encoding, boolean intern, boolean isString, boolean isHolder, 
+			String target, String indent) {
+		final String converter = "f3.commons.serializer.converters.UTF8Converter.";
+		final String encodingName = "f3.commons.serializer.types.Encoding." + encoding.name();
+		final String suffix = getStringSuffix(encoding);
+		
+		final String string;
+		final String into;
+		if(lengthType == null) {
+			string = intern ? converter + "readInternedCStr(buffer, " + encodingName + ")" : converter + "read" + suffix + "CStr(buffer)";
+			into = converter + "readCStrInto(buffer, " + encodingName + ", ";
+		} else {
+			deserialize.append(indent).append("final int sequenceLength = ").append(readLength(lengthType)).append(";\n");
+			deserialize.append(indent).append("if(sequenceLength < 0) {\n");
+			deserialize.append(indent).append("\tthrow new IllegalArgumentException(\"Negative UTF8 length in ").append(type.getQualifiedName())
+				.append("::").append(field.getSimpleName()).append(".\");\n");
+			deserialize.append(indent).append("}\n");
+			string = intern ? converter + "readInterned(buffer, sequenceLength, " + encodingName + ")" : converter + "read" + suffix + "(buffer, sequenceLength)";
+			into = converter + "readInto(buffer, sequenceLength, " + encodingName + ", ";
+		}
+		
+		deserialize.append(indent).append(target).append(" = ");
+		if(isString) {
+			deserialize.append(string);
+		} else if(isHolder) {
+			deserialize.append(into).append(target).append(')');
+		} else {
+			deserialize.append(target).append(" instanceof StringBuilder ? ").append(into).append("(StringBuilder) ").append(target).append(") : ").append(string);
+		}
+		deserialize.append(";\n");
+	}
+	
+	private void writeInline(VariableElement field, TypeMirror fieldType, boolean isFinal) throws UnsupportedTypeException {
+		final String name = field.getSimpleName().toString();
+		final String nullCheck = "\t\t\tif(value == null) {\n"
+				+ "\t\t\t\tthrow new NullPointerException(\"Inline value in " + type.getQualifiedName() + " is null!\");\n"
+				+ "\t\t\t}\n";
+		
+		if(fieldType.getKind() == TypeKind.ARRAY) {
+			final TypeMirror component = ((ArrayType) fieldType).getComponentType();
+			final String componentClass = getInlineClass(field, component);
+			
+			size.append("\t\t{\n");
+			size.append("\t\t\tfinal Object[] value = object.").append(name).append(";\n");
+			size.append("\t\t\tfor(int i = 0; i < value.length; i++) {\n");
+			size.append("\t\t\t\tsize += serializer.sizeOf(value[i]);\n");
+			size.append("\t\t\t}\n");
+			size.append("\t\t}\n");
+			
+			serialize.append("\t\t{\n");
+			serialize.append("\t\t\tfinal Object[] value = object.").append(name).append(";\n");
+			serialize.append(nullCheck);
+			writeArrayIndex(field, "value.length");
+			serialize.append("\t\t\tfor(int i = 0; i < value.length; i++) {\n");
+			serialize.append("\t\t\t\tserializer.serializeObject(value[i], buffer);\n");
+			serialize.append("\t\t\t}\n");
+			serialize.append("\t\t}\n");
+			
+			if(!isFinal) {
+				deserialize.append("\t\t{\n");
+				readArrayIndex(field);
+				deserialize.append("\t\t\tfinal ").append(fieldType).append(" array = new ").append(componentClass).append("[length];\n");
+				deserialize.append("\t\t\tfor(int i = 0; i < length; i++) {\n");
+				deserialize.append("\t\t\t\tarray[i] = deserializer.deserializeObject(").append(componentClass).append(".class, buffer);\n");
+				deserialize.append("\t\t\t}\n");
+				deserialize.append("\t\t\tobject.").append(name).append(" = array;\n");
+				deserialize.append("\t\t}\n");
+			}
+			return;
+		}
+		
+		final TypeMirror erasure = types.erasure(fieldType);
+		if(types.isAssignable(erasure, types.erasure(getType(List.class)))) {
+			if(!types.isAssignable(types.erasure(getType(f3.commons.serializer.stub.ExArrayList.class)), erasure)) {
+				throw new UnsupportedTypeException("list field " + name + " is not List or ArrayList");
+			}
+			
+			final List<? extends TypeMirror> arguments = ((DeclaredType) fieldType).getTypeArguments();
+			if(arguments.size() != 1) {
+				throw new UnsupportedTypeException("raw list field " + name);
+			}
+			final String elementClass = getInlineClass(field, arguments.get(0));
+			
+			size.append("\t\t{\n");
+			size.append("\t\t\tfinal java.util.List value = object.").append(name).append(";\n");
+			size.append("\t\t\tfor(int i = 0; i < value.size(); i++) {\n");
+			size.append("\t\t\t\tsize += serializer.sizeOf(value.get(i));\n");
+			size.append("\t\t\t}\n");
+			size.append("\t\t}\n");
+			
+			serialize.append("\t\t{\n");
+			serialize.append("\t\t\tfinal java.util.List value = object.").append(name).append(";\n");
+			serialize.append(nullCheck);
+			writeArrayIndex(field, "value.size()");
+			serialize.append("\t\t\tfor(int i = 0; i < value.size(); i++) {\n");
+			serialize.append("\t\t\t\tserializer.serializeObject(value.get(i), buffer);\n");
+			serialize.append("\t\t\t}\n");
+			serialize.append("\t\t}\n");
+			
+			if(!isFinal) {
+				deserialize.append("\t\t{\n");
+				readArrayIndex(field);
+				deserialize.append("\t\t\tfinal f3.commons.serializer.stub.ExArrayList list = new f3.commons.serializer.stub.ExArrayList(length);\n");
+				deserialize.append("\t\t\tfor(int i = 0; i < length; i++) {\n");
+				deserialize.append("\t\t\t\tlist.add(deserializer.deserializeObject(").append(elementClass).append(".class, buffer));\n");
+				deserialize.append("\t\t\t}\n");
+				deserialize.append("\t\t\tobject.").append(name).append(" = list;\n");
+				deserialize.append("\t\t}\n");
+			}
+			return;
+		}
+		
+		final String valueClass = getInlineClass(field, fieldType);
+		size.append("\t\tsize += serializer.sizeOf(object.").append(name).append(");\n");
+		serialize.append("\t\t{\n");
+		serialize.append("\t\t\tfinal Object value = object.").append(name).append(";\n");
+		serialize.append(nullCheck);
+		serialize.append("\t\t\tserializer.serializeObject(value, buffer);\n");
+		serialize.append("\t\t}\n");
+		
+		if(!isFinal) {
+			deserialize.append("\t\tobject.").append(name).append(" = deserializer.deserializeObject(").append(valueClass).append(".class, buffer);\n");
+		}
+	}
+	
+	private String getInlineClass(VariableElement field, TypeMirror inlineType) throws UnsupportedTypeException {
+		if(inlineType.getKind() != TypeKind.DECLARED || !isAccessible((TypeElement) ((DeclaredType) inlineType).asElement())) {
+			throw new UnsupportedTypeException("inline type of field " + field.getSimpleName() + " is not accessible");
+		}
+		return types.erasure(inlineType).toString();
+	}
+	
+	/** Writes length prefix of {@link Array} field, required for array and list fields */
+	private void writeArrayIndex(VariableElement field, String length) throws UnsupportedTypeException {
+		final AnnotationMirror array = getArray(field);
+		if(getFixedLength(field) != null) {
+			return;
+		}
+		
+		final Wire sizeType = getWire(field, (TypeMirror) getValue(array, "sizeType"));
+		fixedSize += 1 << sizeType.shift;
+		serialize.append("\t\t\tbuffer.").append(sizeType.put).append('(');
+		switch(sizeType) {
+			case CHAR: serialize.append("(byte) ").append(length); break;
+			case WORD: serialize.append("(short) ").append(length); break;
+			case QWORD: serialize.append(length).append(" & 0xffffffffL"); break;
+			default: serialize.append(length); break;
+		}
+		serialize.append(");\n");
+	}
+	
+	/** Reads length prefix of {@link Array} field into <code>length</code> variable */
+	private void readArrayIndex(VariableElement field) throws UnsupportedTypeException {
+		final AnnotationMirror array = getArray(field);
+		final Integer fixedLength = getFixedLength(field);
+		deserialize.append("\t\t\tfinal int length = ");
+		if(fixedLength != null) {
+			deserialize.append(fixedLength);
+		} else {
+			deserialize.append(readLength(getWire(field, (TypeMirror) getValue(array, "sizeType"))));
+		}
+		deserialize.append(";\n");
+	}
+	
+	private AnnotationMirror getArray(VariableElement field) throws UnsupportedTypeException {
+		final AnnotationMirror array = getAnnotation(field, Array.class);
+		if(array == null) {
+			throw new UnsupportedTypeException("field " + field.getSimpleName() + " without Array annotation");
+		}
+		return array;
+	}
+	
+	private Integer getFixedLength(VariableElement field) {
+		final AnnotationMirror array = getAnnotation(field, Array.class);
+		if(array == null) {
+			return null;
+		}
+		
+		final int length = (Integer) getValue(array, "length");
+		return length != -1 ? length : null;
+	}
+	
+	private static String readLength(Wire wire) {
+		switch(wire) {
+			case CHAR: return "buffer.get() & 0xff";
+			case WORD: return "buffer.getShort() & 0xffff";
+			case DWORD: return "buffer.getInt()";
+			default: return "(int) buffer." + wire.get + "()";
+		}
+	}
+	
+	private static String writeValue(Wire wire, TypeMirror valueType, String value) {
+		if(valueType.getKind() == wire.defaultKind) {
+			return value;
+		} else if(valueType.getKind() != TypeKind.BOOLEAN) {
+			return "(" + wire.javaType + ") " + value;
+		}
+		
+		switch(wire) {
+			case CHAR: return "(byte) (" + value + " ? 1 : 0)";
+			case WORD: return "(short) (" + value + " ? 1 : 0)";
+			case REAL: return value + " ? 1. : 0.";
+			default: return value + " ? 1 : 0";
+		}
+	}
+	
+	private static String readValue(Wire wire, TypeMirror valueType) {
+		final String read = "buffer." + wire.get + "()";
+		if(valueType.getKind() == wire.defaultKind) {
+			return read;
+		} else if(valueType.getKind() != TypeKind.BOOLEAN) {
+			return "(" + valueType + ") " + read;
+		}
+		
+		switch(wire) {
+			case QWORD:
+			case REAL:
+				return "(int) " + read + " != 0";
+			default:
+				return read + " != 0";
+		}
+	}
+	
+	private Wire getWire(VariableElement field, TypeMirror annotationType) throws UnsupportedTypeException {
+		for(Wire wire : Wire.values()) {
+			if(isSame(annotationType, wire.annotation)) {
+				return wire;
+			}
+		}
+		throw new UnsupportedTypeException("unsupported length type of field " + field.getSimpleName());
+	}
+	
+	private boolean isDefault(TypeMirror fieldType, Wire wire) {
+		final TypeMirror type = unbox(fieldType);
+		if(wire == Wire.REAL) {
+			return type.getKind() == TypeKind.FLOAT || type.getKind() == TypeKind.DOUBLE;
+		}
+		return type.getKind() == wire.defaultKind;
+	}
+	
+	private boolean isNumeric(TypeMirror type) {
+		return type.getKind().isPrimitive() || isBoxed(type);
+	}
+	
+	private boolean isBoxed(TypeMirror type) {
+		return unbox(type).getKind().isPrimitive() && !type.getKind().isPrimitive();
+	}
+	
+	private TypeMirror unbox(TypeMirror type) {
+		if(type.getKind() != TypeKind.DECLARED) {
+			return type;
+		}
+		
+		try {
+			return types.unboxedType(type);
+		} catch(IllegalArgumentException e) {
+			return type;
+		}
+	}
+	
+	private boolean isCharSequence(TypeMirror type) {
+		return types.isAssignable(type, getType(CharSequence.class));
+	}
+	
+	private boolean isSame(TypeMirror type, Class<?> clazz) {
+		return type.getKind() == TypeKind.DECLARED && types.isSameType(types.erasure(type), types.erasure(getType(clazz)));
+	}
+	
+	private TypeMirror getType(Class<?> clazz) {
+		return elements.getTypeElement(clazz.getCanonicalName()).asType();
+	}
+	
+	private boolean isAccessible(TypeElement element) {
+		final Set<Modifier> modifiers = element.getModifiers();
+		if(modifiers.contains(Modifier.PRIVATE)) {
+			return false;
+		}
+		
+		if(!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(element).getQualifiedName().contentEquals(packageName)) {
+			return false;
+		}
+		
+		final Element enclosing = element.getEnclosingElement();
+		return !(enclosing instanceof TypeElement) || isAccessible((TypeElement) enclosing);
+	}
+	
+	private static boolean hasDataType(Element element) {
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if(mirror.getAnnotationType().asElement().getAnnotation(DataType.class) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static AnnotationMirror getAnnotation(Element element, Class<? extends Annotation> annotation) {
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation.getCanonicalName())) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+	
+	private Object getValue(AnnotationMirror mirror, String name) {
+		for(Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+			if(entry.getKey().getSimpleName().contentEquals(name)) {
+				return entry.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+}
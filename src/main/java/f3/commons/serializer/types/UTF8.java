@@ -25,6 +25,7 @@ import java.lang.annotation.Target;
 @Retention(RUNTIME)
 @Target(FIELD)
 /**
+ * By default sequence is null-terminated and encoded as UTF-16 for compatibility.
  * @author n3k0nation
  *
  */
@@ -32,4 +33,7 @@ import java.lang.annotation.Target;
 public @interface UTF8 {
 	boolean nullTerminate() default true;
 	Class<? extends Annotation> lengthType() default Dword.class;
+	Encoding encoding() default Encoding.UTF16;
+	/** Decoded strings are taken from bounded cache shared by all deserializers, for short frequently repeated values */
+	boolean intern() default false;
 }
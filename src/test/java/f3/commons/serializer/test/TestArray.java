@@ -158,6 +158,46 @@ public class TestArray {
 		Assert.assertArrayEquals(d.values, result.values, 0.0001d);
 	}
 	
+	@Test
+	public void testWidened() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Array @Dword short[] values;
+		}
+		
+		Data d = new Data();
+		d.values = new short[tlr.nextInt(16, 32)];
+		for(int i = 0; i < d.values.length; i++) {
+			d.values[i] = (short)tlr.nextInt();
+		}
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(d, buffer);
+		buffer.flip();
+		Assert.assertEquals(4 + d.values.length * 4, buffer.remaining());
+		
+		Data result = deserialize(Data.class, buffer);
+		Assert.assertArrayEquals(d.values, result.values);
+	}
+	
+	@Test
+	public void testBoxed() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Array @Word Short[] values;
+		}
+		
+		Data d = new Data();
+		d.values = new Short[tlr.nextInt(16, 32)];
+		for(int i = 0; i < d.values.length; i++) {
+			d.values[i] = (short)tlr.nextInt();
+		}
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(d, buffer);
+		buffer.flip();
+		Assert.assertEquals(4 + d.values.length * 2, buffer.remaining());
+		
+		Data result = deserialize(Data.class, buffer);
+		Assert.assertArrayEquals(d.values, result.values);
+	}
+	
 	private ByteBuffer testSerialize(Object data, byte[] values) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
 		ByteBuffer buffer = getBuffer();
 		serializer.serializeObject(data, buffer);
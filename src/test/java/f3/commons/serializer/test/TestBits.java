@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.converters.BitReader;
+import f3.commons.serializer.converters.BitWriter;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Bits;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.Dword;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestBits {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	
+	@Test
+	public void testGroup() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Bits boolean a;
+			@Bits boolean b;
+			@Bits Boolean c;
+			@Dword int value;
+			@Bits boolean d;
+			@Bits boolean e;
+		}
+		
+		Data d = new Data();
+		d.a = true;
+		d.c = true;
+		d.value = tlr.nextInt();
+		d.e = true;
+		
+		Assert.assertEquals(1 + 4 + 1, serializer.getFixedSize(Data.class));
+		
+		ByteBuffer buffer = serialize(d);
+		Assert.assertEquals(6, buffer.remaining());
+		Assert.assertEquals(0b101, buffer.get(0));
+		Assert.assertEquals(0b10, buffer.get(5));
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(d.a, result.a);
+		Assert.assertEquals(d.b, result.b);
+		Assert.assertEquals(d.c, result.c);
+		Assert.assertEquals(d.value, result.value);
+		Assert.assertEquals(d.d, result.d);
+		Assert.assertEquals(d.e, result.e);
+	}
+	
+	@Test
+	public void testWideGroup() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final Flags d = new Flags();
+		final boolean[] values = new boolean[70];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = tlr.nextBoolean();
+			Flags.class.getDeclaredField("f" + i).setBoolean(d, values[i]);
+		}
+		
+		Assert.assertEquals(9, serializer.getFixedSize(Flags.class));
+		ByteBuffer buffer = serialize(d);
+		Assert.assertEquals(9, buffer.remaining());
+		
+		Flags result = deserializer.deserializeObject(Flags.class, buffer);
+		for(int i = 0; i < values.length; i++) {
+			Assert.assertEquals(values[i], Flags.class.getDeclaredField("f" + i).getBoolean(result));
+		}
+	}
+	
+	@Test
+	public void testBitmap() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Array(sizeType = Char.class) @Bits boolean[] bitmap;
+			@Array(length = 10) @Bits boolean[] fixed = new boolean[10];
+		}
+		
+		Data d = new Data();
+		d.bitmap = new boolean[tlr.nextInt(100, 200)];
+		for(int i = 0; i < d.bitmap.length; i++) {
+			d.bitmap[i] = tlr.nextBoolean();
+		}
+		d.fixed[0] = true;
+		d.fixed[9] = true;
+		
+		for(ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+			ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(order);
+			serializer.serializeObject(d, buffer);
+			buffer.flip();
+			Assert.assertEquals(1 + (d.bitmap.length + 7) / 8 + 2, buffer.remaining());
+			Assert.assertEquals(serializer.sizeOf(d), buffer.remaining());
+			Assert.assertEquals(d.bitmap[0], (buffer.get(1) & 1) != 0);
+			Assert.assertEquals(d.bitmap[8], (buffer.get(2) & 1) != 0);
+			Assert.assertEquals(0b10, buffer.get(buffer.limit() - 1));
+			
+			Data result = deserializer.deserializeObject(Data.class, buffer);
+			Assert.assertFalse(buffer.hasRemaining());
+			Assert.assertArrayEquals(d.bitmap, result.bitmap);
+			Assert.assertArrayEquals(d.fixed, result.fixed);
+		}
+	}
+	
+	@Test
+	public void testWidth() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Bits(3) int direction;
+			@Bits(12) int zone;
+			@Bits boolean moving;
+			@Dword int id;
+			@Bits(5) byte level;
+		}
+		
+		Data d = new Data();
+		d.direction = 5;
+		d.zone = 0xABC;
+		d.moving = true;
+		d.id = tlr.nextInt();
+		d.level = 31;
+		
+		Assert.assertEquals(2 + 4 + 1, serializer.getFixedSize(Data.class));
+		ByteBuffer buffer = serialize(d);
+		Assert.assertEquals(7, buffer.remaining());
+		Assert.assertEquals(5 | 0xABC << 3 | 1 << 15, buffer.getShort(0) & 0xffff);
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(d.direction, result.direction);
+		Assert.assertEquals(d.zone, result.zone);
+		Assert.assertEquals(d.moving, result.moving);
+		Assert.assertEquals(d.id, result.id);
+		Assert.assertEquals(d.level, result.level);
+	}
+	
+	@Test
+	public void testTruncate() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Bits(3) int value = -1;
+			@Bits(4) Short boxed = (short) 0x1234;
+		}
+		
+		ByteBuffer buffer = serialize(new Data());
+		Assert.assertEquals(1, buffer.remaining());
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertEquals(7, result.value);
+		Assert.assertEquals(Short.valueOf((short) 4), result.boxed);
+	}
+	
+	@Test
+	public void testSpill() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Bits(20) int a;
+			@Bits(30) int b;
+			@Bits(20) int c;
+			@Bits(64) long d;
+			@Bits(63) long e;
+			@Bits(16) char f;
+		}
+		
+		for(ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+			Data d = new Data();
+			d.a = tlr.nextInt(1 << 20);
+			d.b = tlr.nextInt(1 << 30);
+			d.c = tlr.nextInt(1 << 20);
+			d.d = tlr.nextLong();
+			d.e = tlr.nextLong() >>> 1;
+			d.f = (char) tlr.nextInt();
+			
+			ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(order);
+			serializer.serializeObject(d, buffer);
+			buffer.flip();
+			Assert.assertEquals((20 + 30 + 20 + 64 + 63 + 16 + 7) / 8, buffer.remaining());
+			
+			Data result = deserializer.deserializeObject(Data.class, buffer);
+			Assert.assertFalse(buffer.hasRemaining());
+			Assert.assertEquals(d.a, result.a);
+			Assert.assertEquals(d.b, result.b);
+			Assert.assertEquals(d.c, result.c);
+			Assert.assertEquals(d.d, result.d);
+			Assert.assertEquals(d.e, result.e);
+			Assert.assertEquals(d.f, result.f);
+		}
+	}
+	
+	@Test
+	public void testArray() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Array(sizeType = Char.class) @Bits(5) int[] values;
+			@Array(length = 3) @Bits(40) long[] longs = new long[3];
+		}
+		
+		Data d = new Data();
+		d.values = new int[tlr.nextInt(10, 100)];
+		for(int i = 0; i < d.values.length; i++) {
+			d.values[i] = tlr.nextInt(32);
+		}
+		for(int i = 0; i < d.longs.length; i++) {
+			d.longs[i] = tlr.nextLong() >>> 24;
+		}
+		
+		ByteBuffer buffer = serialize(d);
+		Assert.assertEquals(1 + (d.values.length * 5 + 7) / 8 + 15, buffer.remaining());
+		Assert.assertEquals(serializer.sizeOf(d), buffer.remaining());
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertArrayEquals(d.values, result.values);
+		Assert.assertArrayEquals(d.longs, result.longs);
+	}
+	
+	@Test
+	public void testBitStream() {
+		final int[] widths = new int[1000];
+		final long[] values = new long[widths.length];
+		long total = 0;
+		ByteBuffer buffer = ByteBuffer.allocate(8 * widths.length).order(ByteOrder.BIG_ENDIAN);
+		BitWriter writer = new BitWriter(buffer);
+		for(int i = 0; i < widths.length; i++) {
+			widths[i] = tlr.nextInt(1, 65);
+			values[i] = tlr.nextLong() >>> (64 - widths[i]);
+			total += widths[i];
+			writer.write(values[i], widths[i]);
+		}
+		writer.flush();
+		buffer.flip();
+		Assert.assertEquals((total + 7) / 8, buffer.remaining());
+		
+		BitReader reader = new BitReader(buffer, total);
+		for(int i = 0; i < widths.length; i++) {
+			Assert.assertEquals(values[i], reader.read(widths[i]));
+		}
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Bits(9) byte value;
+		}
+		
+		serialize(new Data());
+	}
+	
+	private ByteBuffer serialize(Object data) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
+	static class Flags {
+		@Bits boolean f0;
+		@Bits boolean f1;
+		@Bits boolean f2;
+		@Bits boolean f3;
+		@Bits boolean f4;
+		@Bits boolean f5;
+		@Bits boolean f6;
+		@Bits boolean f7;
+		@Bits boolean f8;
+		@Bits boolean f9;
+		@Bits boolean f10;
+		@Bits boolean f11;
+		@Bits boolean f12;
+		@Bits boolean f13;
+		@Bits boolean f14;
+		@Bits boolean f15;
+		@Bits boolean f16;
+		@Bits boolean f17;
+		@Bits boolean f18;
+		@Bits boolean f19;
+		@Bits boolean f20;
+		@Bits boolean f21;
+		@Bits boolean f22;
+		@Bits boolean f23;
+		@Bits boolean f24;
+		@Bits boolean f25;
+		@Bits boolean f26;
+		@Bits boolean f27;
+		@Bits boolean f28;
+		@Bits boolean f29;
+		@Bits boolean f30;
+		@Bits boolean f31;
+		@Bits boolean f32;
+		@Bits boolean f33;
+		@Bits boolean f34;
+		@Bits boolean f35;
+		@Bits boolean f36;
+		@Bits boolean f37;
+		@Bits boolean f38;
+		@Bits boolean f39;
+		@Bits boolean f40;
+		@Bits boolean f41;
+		@Bits boolean f42;
+		@Bits boolean f43;
+		@Bits boolean f44;
+		@Bits boolean f45;
+		@Bits boolean f46;
+		@Bits boolean f47;
+		@Bits boolean f48;
+		@Bits boolean f49;
+		@Bits boolean f50;
+		@Bits boolean f51;
+		@Bits boolean f52;
+		@Bits boolean f53;
+		@Bits boolean f54;
+		@Bits boolean f55;
+		@Bits boolean f56;
+		@Bits boolean f57;
+		@Bits boolean f58;
+		@Bits boolean f59;
+		@Bits boolean f60;
+		@Bits boolean f61;
+		@Bits boolean f62;
+		@Bits boolean f63;
+		@Bits boolean f64;
+		@Bits boolean f65;
+		@Bits boolean f66;
+		@Bits boolean f67;
+		@Bits boolean f68;
+		@Bits boolean f69;
+	}
+	
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.BufferPool;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Dword;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestBufferPool {
+	private final Serializer serializer = new Serializer();
+	
+	@Test
+	public void testReuse() {
+		final BufferPool pool = new BufferPool(64, 1, false);
+		final ByteBuffer first = pool.acquire();
+		final ByteBuffer second = pool.acquire();
+		Assert.assertNotSame(first, second);
+		
+		first.putInt(1);
+		pool.release(first);
+		pool.release(second);
+		
+		final ByteBuffer local = pool.acquire();
+		Assert.assertSame(first, local);
+		Assert.assertEquals(0, local.position());
+		Assert.assertSame(second, pool.acquire());
+	}
+	
+	@Test
+	public void testBounded() {
+		final BufferPool pool = new BufferPool(64, 1, true);
+		final ByteBuffer[] buffers = { pool.acquire(), pool.acquire(), pool.acquire() };
+		Assert.assertTrue(buffers[0].isDirect());
+		for(ByteBuffer buffer : buffers) {
+			pool.release(buffer);
+		}
+		pool.release(ByteBuffer.allocate(64));
+		pool.release(ByteBuffer.allocateDirect(32));
+		
+		Assert.assertSame(buffers[0], pool.acquire());
+		Assert.assertSame(buffers[1], pool.acquire());
+		final ByteBuffer buffer = pool.acquire();
+		Assert.assertNotSame(buffers[2], buffer);
+		Assert.assertTrue(buffer.isDirect());
+		Assert.assertEquals(64, buffer.capacity());
+	}
+	
+	@Test
+	public void testSerialize() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Dword int value;
+		}
+		
+		final BufferPool pool = new BufferPool(64, 1, false);
+		final Data d = new Data();
+		d.value = 0x01020304;
+		
+		final ByteBuffer buffer = new Serializer(ByteOrder.BIG_ENDIAN).serialize(d, pool);
+		buffer.flip();
+		Assert.assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+		Assert.assertEquals(d.value, buffer.getInt());
+		pool.release(buffer);
+		
+		Assert.assertSame(buffer, serializer.serialize(d, pool));
+		Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+		Assert.assertEquals(4, buffer.position());
+	}
+	
+}
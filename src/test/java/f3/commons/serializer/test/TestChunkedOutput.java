@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.BufferPool;
+import f3.commons.serializer.ChunkedOutput;
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Inline;
+import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.Word;
+import lombok.EqualsAndHashCode;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestChunkedOutput {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	
+	@EqualsAndHashCode
+	static class Item {
+		@Dword int id;
+		@Word short count;
+	}
+	
+	@EqualsAndHashCode
+	static class Data {
+		@Dword int id;
+		@UTF8 String name;
+		@Array @Inline List<Item> items;
+		@Array @Dword int[] values;
+	}
+	
+	@Test
+	public void testChunked() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final Data d = new Data();
+		d.id = tlr.nextInt();
+		d.name = "chunked output";
+		d.items = new ArrayList<>();
+		for(int i = 0; i < 20; i++) {
+			final Item item = new Item();
+			item.id = tlr.nextInt();
+			item.count = (short) tlr.nextInt();
+			d.items.add(item);
+		}
+		d.values = new int[tlr.nextInt(16, 32)];
+		for(int i = 0; i < d.values.length; i++) {
+			d.values[i] = tlr.nextInt();
+		}
+		
+		final ByteBuffer expected = serializer.serialize(d);
+		expected.flip();
+		
+		final BufferPool pool = new BufferPool(32, 4, false);
+		final ChunkedOutput output = new ChunkedOutput(pool);
+		serializer.serialize(d, output);
+		Assert.assertEquals(expected.remaining(), output.size());
+		
+		final ByteBuffer[] buffers = output.getBuffers();
+		Assert.assertTrue(buffers.length > 1);
+		final ByteBuffer buffer = ByteBuffer.allocate(output.size()).order(ByteOrder.LITTLE_ENDIAN);
+		for(ByteBuffer chunk : buffers) {
+			Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, chunk.order());
+			buffer.put(chunk);
+		}
+		buffer.flip();
+		Assert.assertEquals(expected, buffer);
+		
+		final Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertEquals(d, result);
+		
+		output.release();
+		Assert.assertEquals(0, output.size());
+		Assert.assertEquals(0, output.getBuffers().length);
+	}
+	
+	@Test
+	public void testAppend() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final ChunkedOutput output = new ChunkedOutput(new BufferPool(8, 4, true));
+		for(int i = 0; i < 5; i++) {
+			final Item item = new Item();
+			item.id = i;
+			item.count = (short) i;
+			serializer.serialize(item, output);
+		}
+		
+		final ByteBuffer[] buffers = output.getBuffers();
+		Assert.assertEquals(5, buffers.length);
+		for(int i = 0; i < buffers.length; i++) {
+			Assert.assertTrue(buffers[i].isDirect());
+			Assert.assertEquals(i, deserializer.deserializeObject(Item.class, buffers[i]).id);
+		}
+		output.release();
+	}
+	
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.ICodec;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.processor.CodecProcessor;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Word;
+import lombok.EqualsAndHashCode;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestCodec {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	@Rule public final TemporaryFolder folder = new TemporaryFolder();
+	
+	@Opcode(0x11)
+	@EqualsAndHashCode
+	static class Data {
+		@Dword int i;
+		@Word short s;
+	}
+	
+	static class DataCodec implements ICodec<Data> {
+		int encoded, decoded;
+		
+		@Override
+		public void serialize(Data object, ByteBuffer buffer, Serializer serializer) {
+			encoded++;
+			buffer.putInt(object.i);
+			buffer.putShort(object.s);
+		}
+		
+		@Override
+		public Data deserialize(ByteBuffer buffer, Deserializer deserializer) {
+			decoded++;
+			final Data data = new Data();
+			data.i = buffer.getInt();
+			data.s = buffer.getShort();
+			return data;
+		}
+	}
+	
+	@Test
+	public void testCodec() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final Data d = new Data();
+		d.i = tlr.nextInt();
+		d.s = (short) tlr.nextInt();
+		
+		final ByteBuffer reflective = serialize(d);
+		
+		final DataCodec codec = new DataCodec();
+		serializer.addCodec(Data.class, codec);
+		deserializer.addCodec(Data.class, codec);
+		
+		final ByteBuffer specialized = serialize(d);
+		Assert.assertEquals(1, codec.encoded);
+		Assert.assertEquals(reflective, specialized);
+		
+		deserializer.addType(Data.class);
+		final Data result = deserializer.deserialize(specialized);
+		Assert.assertEquals(1, codec.decoded);
+		Assert.assertEquals(d, result);
+	}
+	
+	@Test
+	public void testGenerated() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException, IOException {
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeNotNull(compiler);
+		
+		final Path generated = compile(compiler, true);
+		final Path reflective = compile(compiler, false);
+		Assert.assertTrue(generated.resolve("gen/PacketCodec.class").toFile().exists());
+		Assert.assertFalse(reflective.resolve("gen/PacketCodec.class").toFile().exists());
+		
+		try(URLClassLoader generatedLoader = new URLClassLoader(new URL[] { generated.toUri().toURL() }, getClass().getClassLoader());
+				URLClassLoader reflectiveLoader = new URLClassLoader(new URL[] { reflective.toUri().toURL() }, getClass().getClassLoader())) {
+			final Class<?> generatedType = generatedLoader.loadClass("gen.Packet");
+			final Class<?> reflectiveType = reflectiveLoader.loadClass("gen.Packet");
+			
+			final Object expected = reflectiveType.getMethod("sample").invoke(null);
+			final ByteBuffer expectedBuffer = serialize(expected);
+			final Object sample = generatedType.getMethod("sample").invoke(null);
+			final ByteBuffer buffer = serialize(sample);
+			Assert.assertEquals(expectedBuffer, buffer);
+			Assert.assertEquals(expectedBuffer.remaining(), serializer.sizeOf(expected));
+			Assert.assertEquals(buffer.remaining(), serializer.sizeOf(sample));
+			
+			buffer.get(); //skip opcode
+			expectedBuffer.get();
+			final Object reflectiveResult = deserializer.deserializeObject(reflectiveType, expectedBuffer);
+			final Object generatedResult = deserializer.deserializeObject(generatedType, buffer);
+			Assert.assertEquals(reflectiveResult.toString(), generatedResult.toString());
+			Assert.assertFalse(buffer.hasRemaining());
+			
+			//constructors and field initializers are not run on both paths
+			Assert.assertEquals(0, reflectiveType.getMethod("skipped").invoke(reflectiveResult));
+			Assert.assertEquals(0, generatedType.getMethod("skipped").invoke(generatedResult));
+		}
+	}
+	
+	private Path compile(JavaCompiler compiler, boolean process) throws IOException {
+		final Path output = folder.newFolder().toPath();
+		final JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///gen/Packet.java"), Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return PACKET_SOURCE;
+			}
+		};
+		
+		final List<String> options = Arrays.asList("-d", output.toString(), "-classpath", System.getProperty("java.class.path"));
+		final CompilationTask task = compiler.getTask(null, null, null, options, null, Collections.singletonList(source));
+		task.setProcessors(process ? Collections.singletonList(new CodecProcessor()) : Collections.emptyList());
+		Assert.assertTrue(task.call());
+		return output;
+	}
+	
+	private final static String PACKET_SOURCE = String.join("\n", 
+			"package gen;",
+			"import java.util.*;",
+			"import f3.commons.serializer.types.*;",
+			"@Opcode(0x21)",
+			"public class Packet {",
+			"	public static class Item {",
+			"		@Dword int id;",
+			"		@Char byte count;",
+			"		public String toString() { return id + \":\" + count; }",
+			"	}",
+			"	@Char byte b; short s; int i; long l; double d; float f;",
+			"	@Dword boolean flag; @Word char c; @Qword int wide; @Real int real;",
+			"	@Array @Dword int[] ints;",
+			"	@Array(sizeType = Char.class) @Word short[] shorts;",
+			"	@Array(length = 3) @Real double[] reals;",
+			"	String cstr;",
+			"	@UTF8(nullTerminate = false, lengthType = Word.class) String str;",
+			"	@Array(sizeType = Word.class) @UTF8 String[] strs;",
+			"	@Inline Item item;",
+			"	@Array @Inline Item[] items;",
+			"	@Array(sizeType = Qword.class) @Inline List<Item> list;",
+			"	transient int skipped = 1;",
+			"	public int skipped() { return skipped; }",
+			"	public static Packet sample() {",
+			"		Packet p = new Packet();",
+			"		p.b = -3; p.s = -1234; p.i = 0x12345678; p.l = -1L << 40; p.d = 2.5; p.f = -1.5f;",
+			"		p.flag = true; p.c = 'x'; p.wide = -42; p.real = 17;",
+			"		p.ints = new int[] { 1, -2, 3 };",
+			"		p.shorts = new short[] { 4, 5 };",
+			"		p.reals = new double[] { 0.5, 1.5, 2.5 };",
+			"		p.cstr = \"c-string\"; p.str = \"prefixed\";",
+			"		p.strs = new String[] { \"a\", \"bc\" };",
+			"		p.item = new Item(); p.item.id = 9; p.item.count = 2;",
+			"		p.items = new Item[] { p.item, p.item };",
+			"		p.list = new ArrayList<>(Arrays.asList(p.item));",
+			"		return p;",
+			"	}",
+			"	public String toString() {",
+			"		return b + \",\" + s + \",\" + i + \",\" + l + \",\" + d + \",\" + f + \",\" + flag + \",\" + c + \",\" + wide + \",\" + real",
+			"			+ Arrays.toString(ints) + Arrays.toString(shorts) + Arrays.toString(reals) + cstr + str + Arrays.toString(strs)",
+			"			+ item + Arrays.toString(items) + list;",
+			"	}",
+			"}");
+	
+	private ByteBuffer serialize(Object data) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
+	private ByteBuffer getBuffer() {
+		return ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+}
@@ -15,6 +15,7 @@
  */
 package f3.commons.serializer.test;
 
+import java.lang.reflect.Field;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -24,7 +25,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.FieldAccessor;
 import f3.commons.serializer.Serializer;
+import f3.commons.serializer.converters.DwordConverter;
 import f3.commons.serializer.types.Dword;
 
 /**
@@ -148,6 +151,27 @@ public class TestDword {
 		Assert.assertEquals(d.value, result.value);
 	}
 	
+	@Test
+	public void testFieldOverload() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Dword int value;
+		}
+		
+		final Field field = Data.class.getDeclaredField("value");
+		Assert.assertSame(FieldAccessor.of(field), FieldAccessor.of(field));
+		
+		Data d = new Data();
+		d.value = tlr.nextInt();
+		ByteBuffer buffer = getBuffer();
+		DwordConverter.getInstance().serialize(d, field, buffer, serializer);
+		buffer.flip();
+		
+		Data result = new Data();
+		DwordConverter.getInstance().deserialize(result, field, buffer, deserializer);
+		Assert.assertEquals(d.value, result.value);
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+	
 	private ByteBuffer test(Object data, int value) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
 		ByteBuffer buffer = getBuffer();
 		serializer.serializeObject(data, buffer);
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.ChunkedOutput;
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Qword;
+import f3.commons.serializer.types.Real;
+import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.Word;
+import lombok.EqualsAndHashCode;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestFixedLayout {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	
+	@EqualsAndHashCode
+	static class Move {
+		@Dword int id;
+		@Real float x;
+		@Real double y;
+		@Word int heading;
+		@Char boolean running;
+		@Array(length = 3) @Word int[] path;
+		@Qword long time;
+	}
+	
+	@Test
+	public void testLayout() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final Move m = new Move();
+		m.id = tlr.nextInt();
+		m.x = tlr.nextFloat();
+		m.y = tlr.nextDouble();
+		m.heading = (short) tlr.nextInt();
+		m.running = true;
+		m.path = new int[] { (short) tlr.nextInt(), (short) tlr.nextInt(), (short) tlr.nextInt() };
+		m.time = tlr.nextLong();
+		
+		final int size = 4 + 8 + 8 + 2 + 1 + 3 * 2 + 8;
+		Assert.assertEquals(size, serializer.getFixedSize(Move.class));
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(size + 1).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 0x7f);
+		serializer.serializeObject(m, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		
+		buffer.position(1);
+		Assert.assertEquals(m.id, buffer.getInt());
+		Assert.assertEquals(m.x, buffer.getDouble(), 0);
+		Assert.assertEquals(m.y, buffer.getDouble(), 0);
+		Assert.assertEquals(m.heading, buffer.getShort());
+		Assert.assertEquals(1, buffer.get());
+		for(int i = 0; i < m.path.length; i++) {
+			Assert.assertEquals(m.path[i], buffer.getShort());
+		}
+		Assert.assertEquals(m.time, buffer.getLong());
+		
+		buffer.position(1);
+		final Move result = deserializer.deserializeObject(Move.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(m, result);
+	}
+	
+	@Test
+	public void testOverflow() throws IllegalArgumentException, ReflectiveOperationException {
+		final Move m = new Move();
+		m.path = new int[3];
+		final ByteBuffer buffer = ByteBuffer.allocate(serializer.getFixedSize(Move.class) - 1);
+		try {
+			serializer.serializeObject(m, buffer);
+			Assert.fail();
+		} catch(BufferOverflowException e) {
+			Assert.assertEquals(0, buffer.position());
+		}
+	}
+	
+	/** Private field keeps class out of codec generation, so it is written by layout */
+	@Opcode(0x41)
+	static class OpcodeArray {
+		@Array(length = 2) @Dword private int[] values;
+	}
+	
+	static class FixedArray {
+		@Array(length = 2) @Dword int[] values;
+		@Dword int id;
+	}
+	
+	static class MixedArray {
+		@Array(length = 2) @Dword int[] values;
+		@Dword int id;
+		@UTF8 String name;
+	}
+	
+	@Opcode(0x40)
+	static class CodedArray {
+		@Array(length = 2) @Dword int[] values;
+		@Dword int id;
+		@UTF8 String name;
+	}
+	
+	@Test
+	public void testFixedLength() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final int[] values = { tlr.nextInt(), tlr.nextInt(), tlr.nextInt() };
+		final int id = tlr.nextInt();
+		
+		final FixedArray fixed = new FixedArray();
+		fixed.values = values;
+		fixed.id = id;
+		final MixedArray mixed = new MixedArray();
+		mixed.values = values;
+		mixed.id = id;
+		mixed.name = "";
+		final CodedArray coded = new CodedArray();
+		coded.values = values;
+		coded.id = id;
+		coded.name = "";
+		
+		Assert.assertEquals(12, serializer.getFixedSize(FixedArray.class));
+		Assert.assertEquals(12, serializer.sizeOf(fixed));
+		Assert.assertEquals(12 + 2, serializer.sizeOf(mixed));
+		Assert.assertEquals(1 + 12 + 2, serializer.sizeOf(coded));
+		
+		for(Object data : new Object[] { fixed, mixed, coded }) {
+			final ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+			serializer.serializeObject(data, buffer);
+			buffer.flip();
+			Assert.assertEquals(serializer.sizeOf(data), buffer.remaining());
+			if(data == coded) {
+				buffer.get(); //opcode
+			}
+			Assert.assertEquals(values[0], buffer.getInt());
+			Assert.assertEquals(values[1], buffer.getInt());
+			Assert.assertEquals(id, buffer.getInt());
+		}
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+		serializer.serializeObject(mixed, buffer);
+		buffer.flip();
+		final MixedArray result = deserializer.deserializeObject(MixedArray.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertArrayEquals(new int[] { values[0], values[1] }, result.values);
+		Assert.assertEquals(id, result.id);
+	}
+	
+	@Test
+	public void testShortArray() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final FixedArray fixed = new FixedArray();
+		fixed.values = new int[1];
+		final MixedArray mixed = new MixedArray();
+		mixed.values = new int[1];
+		mixed.name = "";
+		final CodedArray coded = new CodedArray();
+		coded.values = new int[1];
+		coded.name = "";
+		
+		for(Object data : new Object[] { fixed, mixed, coded }) {
+			final ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+			try {
+				serializer.serializeObject(data, buffer);
+				Assert.fail();
+			} catch(IllegalArgumentException e) {
+				Assert.assertEquals(data == coded ? 1 : 0, buffer.position());
+			}
+		}
+	}
+	
+	@Test
+	public void testOpcodeUntouched() throws IllegalArgumentException, ReflectiveOperationException {
+		final OpcodeArray data = new OpcodeArray();
+		data.values = new int[2];
+		ByteBuffer buffer = ByteBuffer.allocate(serializer.getFixedSize(OpcodeArray.class) - 1);
+		try {
+			serializer.serializeObject(data, buffer);
+			Assert.fail();
+		} catch(BufferOverflowException e) {
+			Assert.assertEquals(0, buffer.position());
+		}
+		
+		data.values = new int[1];
+		buffer = ByteBuffer.allocate(serializer.getFixedSize(OpcodeArray.class));
+		try {
+			serializer.serializeObject(data, buffer);
+			Assert.fail();
+		} catch(IllegalArgumentException e) {
+			Assert.assertEquals(0, buffer.position());
+		}
+		
+		final ChunkedOutput output = new ChunkedOutput();
+		try {
+			serializer.serialize(data, output);
+			Assert.fail();
+		} catch(IllegalArgumentException e) {
+			Assert.assertEquals(0, output.size());
+		} finally {
+			output.release();
+		}
+	}
+	
+	@Test
+	public void testReuse() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final Move m = new Move();
+		m.path = new int[] { 1, 2, 3 };
+		final ByteBuffer buffer = ByteBuffer.allocate(serializer.getFixedSize(Move.class)).order(ByteOrder.LITTLE_ENDIAN);
+		serializer.serializeObject(m, buffer);
+		buffer.flip();
+		
+		final Move target = new Move();
+		final int[] path = new int[3];
+		target.path = path;
+		deserializer.deserializeInto(target, buffer);
+		Assert.assertSame(path, target.path);
+		Assert.assertArrayEquals(m.path, target.path);
+	}
+	
+}
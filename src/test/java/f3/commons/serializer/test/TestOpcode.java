@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Qword;
+import f3.commons.serializer.types.Word;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestOpcode {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	
+	@Opcode(0x01)
+	static class CharPacket {
+		@Dword int value;
+	}
+	
+	@Opcode(value = 0x0302, type = Word.class)
+	static class WordPacket {
+		@Dword int value;
+	}
+	
+	@Opcode(value = 0x07060504, type = Dword.class)
+	static class DwordPacket {
+		@Dword int value;
+	}
+	
+	@Opcode(value = 0x0706050A, type = Dword.class)
+	static class OtherDwordPacket {
+		@Char byte value;
+	}
+	
+	@Opcode(0x02)
+	static class AmbiguousPacket {
+		@Char byte value;
+	}
+	
+	@Opcode(value = 0x01, type = Qword.class)
+	static class UnsupportedPacket {
+		@Dword int value;
+	}
+	
+	@Test
+	public void testDispatch() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		deserializer.addType(CharPacket.class);
+		deserializer.addType(WordPacket.class);
+		deserializer.addType(DwordPacket.class);
+		deserializer.addType(OtherDwordPacket.class);
+		
+		final CharPacket charPacket = new CharPacket();
+		charPacket.value = 1;
+		final WordPacket wordPacket = new WordPacket();
+		wordPacket.value = 2;
+		final DwordPacket dwordPacket = new DwordPacket();
+		dwordPacket.value = 3;
+		final OtherDwordPacket otherDwordPacket = new OtherDwordPacket();
+		otherDwordPacket.value = 4;
+		
+		final ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(dwordPacket, buffer);
+		serializer.serializeObject(charPacket, buffer);
+		serializer.serializeObject(wordPacket, buffer);
+		serializer.serializeObject(otherDwordPacket, buffer);
+		buffer.flip();
+		Assert.assertEquals(4 + 4 + 1 + 4 + 2 + 4 + 4 + 1, buffer.remaining());
+		
+		Assert.assertEquals(3, deserializer.<DwordPacket>deserialize(buffer).value);
+		Assert.assertEquals(1, deserializer.<CharPacket>deserialize(buffer).value);
+		Assert.assertEquals(2, deserializer.<WordPacket>deserialize(buffer).value);
+		Assert.assertEquals(4, deserializer.<OtherDwordPacket>deserialize(buffer).value);
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testUnknown() throws IllegalArgumentException, ReflectiveOperationException {
+		deserializer.addType(CharPacket.class);
+		final ByteBuffer buffer = getBuffer();
+		buffer.put((byte) 0x7f).flip();
+		deserializer.deserialize(buffer);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testAmbiguous() throws IllegalArgumentException, ReflectiveOperationException {
+		deserializer.addType(WordPacket.class);
+		deserializer.addType(AmbiguousPacket.class);
+	}
+	
+	@Test
+	public void testByteOrder() throws IllegalArgumentException, ReflectiveOperationException {
+		final Deserializer deserializer = new Deserializer(ByteOrder.BIG_ENDIAN);
+		deserializer.addType(WordPacket.class);
+		deserializer.addType(AmbiguousPacket.class);
+		
+		final ByteBuffer buffer = new Serializer(ByteOrder.BIG_ENDIAN).serialize(new WordPacket());
+		buffer.flip();
+		Assert.assertEquals(WordPacket.class, deserializer.deserialize(buffer).getClass());
+	}
+	
+	@Test
+	public void testHeader() throws IllegalArgumentException, ReflectiveOperationException {
+		final ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(new DwordPacket(), buffer);
+		serializer.serializeObject(new WordPacket(), buffer);
+		Assert.assertEquals(0x07060504, buffer.getInt(0));
+		Assert.assertEquals(0x0302, buffer.getShort(8));
+		Assert.assertEquals(0, buffer.getInt(10));
+		Assert.assertEquals(4 + 4 + 2 + 4, buffer.position());
+		Assert.assertEquals(2 + 4, serializer.sizeOf(new WordPacket()));
+		
+		final ByteBuffer bigEndian = new Serializer(ByteOrder.BIG_ENDIAN).serialize(new DwordPacket());
+		Assert.assertEquals(0x07, bigEndian.get(0));
+		Assert.assertEquals(0x04, bigEndian.get(3));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported() {
+		serializer.addType(UnsupportedPacket.class);
+	}
+	
+	private ByteBuffer getBuffer() {
+		return ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.Protocol;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Inline;
+import f3.commons.serializer.types.Opcode;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestProtocol {
+	
+	@Opcode(0x10)
+	static class Item {
+		@Dword int id;
+	}
+	
+	@Opcode(0x11)
+	static class Inventory {
+		@Dword int owner;
+		@Array @Inline List<Item> items;
+	}
+	
+	@Opcode(0x12)
+	static class Ping {
+		@Dword int time;
+	}
+	
+	@Opcode(0x13)
+	static class Locked {
+		@Dword int id;
+		final Object lock = new Object();
+	}
+	
+	@Opcode(0x14)
+	static class LockedHolder {
+		@Dword int owner;
+		@Inline Locked locked;
+	}
+	
+	@Test
+	public void testNestedList() {
+		final Protocol protocol = new Protocol();
+		protocol.addType(Inventory.class);
+		Assert.assertTrue(protocol.isRegistered(Inventory.class));
+		Assert.assertTrue(protocol.isRegistered(Item.class));
+		Assert.assertFalse(protocol.isRegistered(Ping.class));
+	}
+	
+	@Test
+	public void testHotAdd() throws IllegalArgumentException, ReflectiveOperationException {
+		final Protocol protocol = new Protocol();
+		protocol.addType(Item.class);
+		final Deserializer deserializer = new Deserializer(protocol);
+		
+		final Ping ping = new Ping();
+		ping.time = ThreadLocalRandom.current().nextInt();
+		final ByteBuffer buffer = new Serializer(protocol).serialize(ping);
+		buffer.flip();
+		
+		protocol.addType(Ping.class);
+		Assert.assertEquals(ping.time, deserializer.<Ping>deserialize(buffer).time);
+	}
+	
+	@Test
+	public void testFinalField() throws IllegalArgumentException, ReflectiveOperationException {
+		final Deserializer deserializer = new Deserializer();
+		deserializer.addType(Locked.class);
+		deserializer.addType(LockedHolder.class);
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 0x14).putInt(7).putInt(42).flip();
+		final LockedHolder holder = deserializer.deserialize(buffer);
+		Assert.assertEquals(7, holder.owner);
+		Assert.assertEquals(42, holder.locked.id);
+		
+		final Protocol protocol = new Protocol();
+		protocol.addType(LockedHolder.class);
+		Assert.assertTrue(protocol.isRegistered(Locked.class));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testFrozen() {
+		new Serializer(new Protocol()).getConverters().clear();
+	}
+	
+	@Test
+	public void testShared() throws Exception {
+		final Protocol protocol = new Protocol();
+		protocol.addType(Inventory.class, Ping.class);
+		final Serializer serializer = new Serializer(protocol);
+		final Deserializer deserializer = new Deserializer(protocol);
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<>();
+			for(int i = 0; i < 16; i++) {
+				results.add(executor.submit(() -> {
+					final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+					for(int j = 0; j < 256; j++) {
+						final Inventory inventory = new Inventory();
+						inventory.owner = tlr.nextInt();
+						inventory.items = new ArrayList<>();
+						for(int k = tlr.nextInt(8); k > 0; k--) {
+							final Item item = new Item();
+							item.id = tlr.nextInt();
+							inventory.items.add(item);
+						}
+						
+						final ByteBuffer buffer = serializer.serialize(inventory);
+						buffer.flip();
+						final Inventory result = deserializer.deserialize(buffer);
+						if(result.owner != inventory.owner || result.items.size() != inventory.items.size()) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			
+			for(Future<Boolean> result : results) {
+				Assert.assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+}
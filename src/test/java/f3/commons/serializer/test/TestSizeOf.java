@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.ICodec;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.Dword;
+import f3.commons.serializer.types.Inline;
+import f3.commons.serializer.types.Opcode;
+import f3.commons.serializer.types.Qword;
+import f3.commons.serializer.types.Real;
+import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.Word;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestSizeOf {
+	private final Serializer serializer = new Serializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	
+	static class Position {
+		@Real double x, y;
+	}
+	
+	@Opcode(value = 0x0102, type = Word.class)
+	static class Fixed {
+		@Char byte b;
+		@Word short s;
+		@Dword int i;
+		@Qword long l;
+	}
+	
+	static class Nested {
+		@Dword int id;
+		@Inline Position position = new Position();
+	}
+	
+	static class Variable {
+		@Dword int id;
+		@UTF8 String cstr;
+		@UTF8(nullTerminate = false, lengthType = Word.class) String str;
+		@Array(sizeType = Char.class) @UTF8 String[] strs;
+		@Array @Dword int[] values;
+		@Array(length = 2) @Word short[] fixedValues;
+		@Array @Inline List<Position> positions;
+	}
+	
+	@Opcode(0x7f)
+	static class Coded {
+		@Dword int value;
+	}
+	
+	static class CodedCodec implements ICodec<Coded> {
+		@Override
+		public void serialize(Coded object, ByteBuffer buffer, Serializer serializer) {
+			for(int i = 0; i < object.value; i++) {
+				buffer.put((byte) i);
+			}
+		}
+		
+		@Override
+		public Coded deserialize(ByteBuffer buffer, Deserializer deserializer) {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	@Test
+	public void testFixed() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final int size = 2 + 1 + 2 + 4 + 8;
+		Assert.assertEquals(size, serializer.getFixedSize(Fixed.class));
+		Assert.assertEquals(size, serializer.sizeOf(new Fixed()));
+		Assert.assertEquals(size, serialize(new Fixed()).position());
+		
+		Assert.assertEquals(4 + 16, serializer.getFixedSize(Nested.class));
+		Assert.assertEquals(4 + 16, serialize(new Nested()).position());
+	}
+	
+	@Test
+	public void testVariable() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final Variable v = new Variable();
+		v.cstr = "null-terminated";
+		v.str = "length-prefixed";
+		v.strs = new String[] { "a", "bc", "" };
+		v.values = new int[tlr.nextInt(0, 16)];
+		v.fixedValues = new short[2];
+		v.positions = new ArrayList<>();
+		for(int i = tlr.nextInt(0, 8); i > 0; i--) {
+			v.positions.add(new Position());
+		}
+		
+		Assert.assertEquals(-1, serializer.getFixedSize(Variable.class));
+		Assert.assertEquals(serialize(v).position(), serializer.sizeOf(v));
+	}
+	
+	@Test
+	public void testCodec() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		serializer.addCodec(Coded.class, new CodedCodec());
+		final Coded c = new Coded();
+		c.value = tlr.nextInt(0, 64);
+		
+		Assert.assertEquals(-1, serializer.getFixedSize(Coded.class));
+		Assert.assertEquals(1 + c.value, serializer.sizeOf(c));
+		Assert.assertEquals(1 + c.value, serialize(c).position());
+	}
+	
+	private ByteBuffer serialize(Object object) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		final ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+		serializer.serializeObject(object, buffer);
+		return buffer;
+	}
+	
+}
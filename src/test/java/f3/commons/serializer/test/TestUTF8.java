@@ -16,6 +16,7 @@
 package f3.commons.serializer.test;
 
 import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.concurrent.ThreadLocalRandom;
@@ -25,8 +26,12 @@ import org.junit.Test;
 
 import f3.commons.serializer.Deserializer;
 import f3.commons.serializer.Serializer;
+import f3.commons.serializer.converters.UTF8Converter;
 import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Encoding;
+import f3.commons.serializer.types.Opcode;
 import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.Word;
 
 /**
  * @author n3k0nation
@@ -71,6 +76,300 @@ public class TestUTF8 {
 		Assert.assertArrayEquals(data.values, result.values);
 	}
 	
+	@Opcode(0x31)
+	static class Message {
+		@UTF8(encoding = Encoding.UTF8) String name;
+		@UTF8(encoding = Encoding.UTF8, nullTerminate = false, lengthType = Word.class) String text;
+	}
+	
+	@Test
+	public void testEncodingUTF8() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@UTF8(encoding = Encoding.UTF8) String name;
+			@Array @UTF8(encoding = Encoding.UTF8, nullTerminate = false, lengthType = Word.class) String[] texts;
+		}
+		
+		Data data = new Data();
+		data.name = generateString(tlr.nextInt(4, 16));
+		data.texts = new String[] {"", "\u043f\u0440\u0438\u0432\u0435\u0442", "a\u20acb\ud83d\ude00c", generateString(tlr.nextInt(4, 16))};
+		
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		Assert.assertEquals(serializer.sizeOf(data), buffer.remaining());
+		Assert.assertEquals(data.name.length() + 1 + 4 + (2 + 0) + (2 + 12) + (2 + 10) + (2 + data.texts[3].length()), buffer.remaining());
+		Assert.assertEquals(0, buffer.get(data.name.length()));
+		
+		Data result = deserialize(Data.class, buffer);
+		Assert.assertEquals(data.name, result.name);
+		Assert.assertArrayEquals(data.texts, result.texts);
+		Assert.assertFalse(buffer.hasRemaining());
+		
+		final ByteBuffer direct = ByteBuffer.allocateDirect(buffer.limit()).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.flip();
+		direct.put(buffer).flip();
+		result = deserialize(Data.class, direct);
+		Assert.assertArrayEquals(data.texts, result.texts);
+	}
+	
+	@Test
+	public void testEncodingCodec() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		Message message = new Message();
+		message.name = generateString(tlr.nextInt(4, 16));
+		message.text = "\u00e9t\u00e9 " + generateString(tlr.nextInt(4, 16));
+		
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(message, buffer);
+		buffer.flip();
+		Assert.assertEquals(1 + message.name.length() + 1 + 2 + message.text.length() + 2, buffer.remaining());
+		Assert.assertEquals(serializer.sizeOf(message), buffer.remaining());
+		
+		buffer.get(); //opcode
+		Message result = deserialize(Message.class, buffer);
+		Assert.assertEquals(message.name, result.name);
+		Assert.assertEquals(message.text, result.text);
+	}
+	
+	@Test
+	public void testEncodingLatin1() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@UTF8(encoding = Encoding.LATIN1) String name;
+			@UTF8(encoding = Encoding.LATIN1, nullTerminate = false, lengthType = Word.class) CharSequence text;
+		}
+		
+		Data data = new Data();
+		data.name = "caf\u00e9 " + generateString(tlr.nextInt(4, 16));
+		data.text = new StringBuilder("\u00fcber\u20ac");
+		
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		Assert.assertEquals(data.name.length() + 1 + 2 + data.text.length(), buffer.remaining());
+		Assert.assertEquals(serializer.sizeOf(data), buffer.remaining());
+		Assert.assertEquals((byte) 0xe9, buffer.get(3));
+		
+		Data result = deserialize(Data.class, buffer);
+		Assert.assertEquals(data.name, result.name);
+		Assert.assertEquals("\u00fcber?", result.text.toString());
+	}
+	
+	@Test
+	public void testDirectBuffer() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@UTF8 String name;
+			@UTF8(nullTerminate = false) String text;
+			@UTF8(encoding = Encoding.LATIN1) String latin;
+		}
+		
+		Data data = new Data();
+		data.name = generateString(tlr.nextInt(4, 16));
+		data.text = "\u043f\u0440\u0438\u0432\u0435\u0442 " + generateString(tlr.nextInt(4, 16));
+		data.latin = generateString(tlr.nextInt(4, 16));
+		
+		final Serializer serializer = new Serializer(ByteOrder.BIG_ENDIAN);
+		final Deserializer deserializer = new Deserializer(ByteOrder.BIG_ENDIAN);
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(Serializer.defaultBufferSize).order(ByteOrder.BIG_ENDIAN);
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		Assert.assertEquals(data.name.charAt(0), buffer.getChar(0));
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertEquals(data.name, result.name);
+		Assert.assertEquals(data.text, result.text);
+		Assert.assertEquals(data.latin, result.latin);
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+	
+	@Opcode(0x32)
+	static class Channel {
+		@UTF8(intern = true) String name;
+		@UTF8(intern = true, encoding = Encoding.UTF8, nullTerminate = false, lengthType = Word.class) String topic;
+	}
+	
+	@Test
+	public void testIntern() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@UTF8(intern = true, encoding = Encoding.LATIN1) String name;
+			@Array @UTF8(intern = true, nullTerminate = false) String[] items;
+			@UTF8(intern = true) String description;
+		}
+		
+		Data data = new Data();
+		data.name = generateString(tlr.nextInt(4, 16));
+		data.items = new String[] {generateString(8), generateString(12)};
+		data.description = generateString(100);
+		
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(data, buffer);
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		
+		Data first = deserialize(Data.class, buffer);
+		Data second = deserialize(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(data.name, first.name);
+		Assert.assertArrayEquals(data.items, first.items);
+		Assert.assertEquals(data.description, second.description);
+		Assert.assertSame(first.name, second.name);
+		Assert.assertSame(first.items[1], second.items[1]);
+		Assert.assertNotSame(first.description, second.description); //too long for cache
+		
+		Channel channel = new Channel();
+		channel.name = generateString(tlr.nextInt(4, 16));
+		channel.topic = "\u00e9t\u00e9";
+		buffer.clear();
+		serializer.serializeObject(channel, buffer);
+		serializer.serializeObject(channel, buffer);
+		buffer.flip();
+		
+		buffer.get(); //opcode
+		Channel firstChannel = deserialize(Channel.class, buffer);
+		buffer.get();
+		Channel secondChannel = deserialize(Channel.class, buffer);
+		Assert.assertEquals(channel.topic, firstChannel.topic);
+		Assert.assertSame(firstChannel.name, secondChannel.name);
+		Assert.assertSame(firstChannel.topic, secondChannel.topic);
+	}
+	
+	@Test
+	public void testInternByteOrder() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@UTF8(intern = true, nullTerminate = false) String name;
+		}
+		
+		final String name = generateString(tlr.nextInt(4, 16));
+		final ByteBuffer little = ByteBuffer.allocate(4 + name.length() * 2).order(ByteOrder.LITTLE_ENDIAN);
+		final ByteBuffer big = ByteBuffer.allocate(little.capacity()).order(ByteOrder.BIG_ENDIAN);
+		little.putInt(name.length() * 2);
+		big.putInt(name.length() * 2);
+		for(int i = 0; i < name.length(); i++) { //the same sequence bytes in both buffers
+			little.putChar(name.charAt(i));
+			big.putChar(Character.reverseBytes(name.charAt(i)));
+		}
+		little.flip();
+		big.flip();
+		
+		Assert.assertEquals(name, new Deserializer(ByteOrder.LITTLE_ENDIAN).deserializeObject(Data.class, little).name);
+		
+		final StringBuilder swapped = new StringBuilder();
+		for(int i = 0; i < name.length(); i++) {
+			swapped.append(Character.reverseBytes(name.charAt(i)));
+		}
+		Assert.assertEquals(swapped.toString(), new Deserializer(ByteOrder.BIG_ENDIAN).deserializeObject(Data.class, big).name);
+	}
+	
+	@Opcode(0x33)
+	static class Profile {
+		@UTF8(encoding = Encoding.UTF8) StringBuilder name;
+		@UTF8(nullTerminate = false, lengthType = Word.class) CharSequence status;
+	}
+	
+	static class Holders {
+		@UTF8 StringBuilder name;
+		@UTF8(encoding = Encoding.UTF8, nullTerminate = false) CharSequence text;
+		@UTF8(encoding = Encoding.LATIN1) CharSequence latin;
+		@Array @UTF8 StringBuilder[] tags;
+	}
+	
+	@Test
+	public void testHolder() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		Holders data = new Holders();
+		data.name = new StringBuilder(generateString(tlr.nextInt(4, 16)));
+		data.text = "\u043f\u0440\u0438\u0432\u0435\u0442 \ud83d\ude00 " + generateString(4);
+		data.latin = "caf\u00e9";
+		data.tags = new StringBuilder[] {new StringBuilder("a"), new StringBuilder(generateString(8))};
+		
+		ByteBuffer buffer = getBuffer();
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		
+		Holders result = deserialize(Holders.class, buffer);
+		Assert.assertEquals(data.name.toString(), result.name.toString());
+		Assert.assertEquals(data.text, result.text);
+		Assert.assertEquals(data.tags[1].toString(), result.tags[1].toString());
+		
+		final StringBuilder name = new StringBuilder("previous value");
+		final StringBuilder text = new StringBuilder();
+		final StringBuilder latin = new StringBuilder();
+		final StringBuilder[] tags = {new StringBuilder(), new StringBuilder()};
+		Holders target = new Holders();
+		target.name = name;
+		target.text = text;
+		target.latin = latin;
+		target.tags = tags;
+		
+		buffer.position(0);
+		Assert.assertSame(target, deserializer.deserializeInto(target, buffer));
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertSame(name, target.name);
+		Assert.assertSame(text, target.text);
+		Assert.assertSame(latin, target.latin);
+		Assert.assertSame(tags, target.tags);
+		Assert.assertSame(tags[1], target.tags[1]);
+		Assert.assertEquals(data.name.toString(), name.toString());
+		Assert.assertEquals(data.text, text.toString());
+		Assert.assertEquals(data.latin, latin.toString());
+		Assert.assertEquals(data.tags[0].toString(), tags[0].toString());
+		
+		Profile profile = new Profile();
+		profile.name = new StringBuilder("\u00e9t\u00e9");
+		profile.status = generateString(10);
+		buffer.clear();
+		serializer.serializeObject(profile, buffer);
+		buffer.flip();
+		buffer.get(); //opcode
+		
+		Profile profileTarget = new Profile();
+		profileTarget.name = name;
+		profileTarget.status = text;
+		deserializer.deserializeInto(profileTarget, buffer);
+		Assert.assertSame(name, profileTarget.name);
+		Assert.assertSame(text, profileTarget.status);
+		Assert.assertEquals(profile.name.toString(), name.toString());
+		Assert.assertEquals(profile.status, text.toString());
+	}
+	
+	@Test
+	public void testMalformedUTF8() {
+		final ByteBuffer buffer = getBuffer();
+		buffer.put(new byte[] {'a', (byte) 0xc3, 'b', (byte) 0xe2, (byte) 0x82, (byte) 0xac, (byte) 0xc0, (byte) 0x80, (byte) 0xff}).flip();
+		Assert.assertEquals("a\ufffdb\u20ac\ufffd\ufffd", UTF8Converter.readInto(buffer, buffer.remaining(), Encoding.UTF8, null).toString());
+	}
+	
+	@Test
+	public void testTerminator() {
+		for(ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+			for(int length = 0; length < 40; length++) {
+				final StringBuilder sb = new StringBuilder(length);
+				for(int i = 0; i < length; i++) {
+					sb.append((char) tlr.nextInt(1, 0x100));
+				}
+				final String value = sb.toString();
+				
+				for(int offset = 0; offset < 3; offset++) {
+					final ByteBuffer buffer = ByteBuffer.allocate(offset + (length + 1) * 3 + 8).order(order);
+					buffer.position(offset);
+					UTF8Converter.writeCStr(value, buffer);
+					UTF8Converter.writeLatin1CStr(value, buffer);
+					buffer.putLong(-1L);
+					buffer.flip().position(offset);
+					
+					Assert.assertEquals(value, UTF8Converter.readCStr(buffer));
+					Assert.assertEquals(value, UTF8Converter.readLatin1CStr(buffer));
+					Assert.assertEquals(8, buffer.remaining());
+				}
+			}
+		}
+	}
+	
+	@Test(expected = BufferUnderflowException.class)
+	public void testNoTerminator() {
+		final ByteBuffer buffer = getBuffer();
+		UTF8Converter.writeLatin1(generateString(20), buffer);
+		buffer.flip();
+		UTF8Converter.readUTF8CStr(buffer);
+	}
+	
 	private String generateString(int length) {
 		StringBuilder sb = new StringBuilder(length);
 		for(int i = 0; i < length; i++) {
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.converters.VarIntConverter;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.UTF8;
+import f3.commons.serializer.types.VarInt;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestVarInt {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	
+	@Test
+	public void testSize() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@VarInt int value;
+		}
+		
+		final int[] values = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+		final int[] sizes = {1, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 5, 5};
+		for(int i = 0; i < values.length; i++) {
+			Data d = new Data();
+			d.value = values[i];
+			ByteBuffer buffer = serialize(d);
+			Assert.assertEquals(sizes[i], buffer.remaining());
+			Assert.assertEquals(values[i], deserializer.deserializeObject(Data.class, buffer).value);
+		}
+		Assert.assertEquals(-1, serializer.getFixedSize(Data.class));
+	}
+	
+	@Test
+	public void testEncoding() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@VarInt int value = 300;
+		}
+		
+		ByteBuffer buffer = serialize(new Data());
+		Assert.assertEquals((byte) 0xAC, buffer.get());
+		Assert.assertEquals((byte) 0x02, buffer.get());
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+	
+	@Test
+	public void testTypes() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@VarInt byte b;
+			@VarInt char c;
+			@VarInt short s;
+			@VarInt long l;
+			@VarInt boolean bool;
+			@VarInt Integer boxedInt;
+			@VarInt Long boxedLong;
+		}
+		
+		Data d = new Data();
+		d.b = (byte) tlr.nextInt();
+		d.c = (char) tlr.nextInt();
+		d.s = (short) tlr.nextInt();
+		d.l = tlr.nextLong();
+		d.bool = tlr.nextBoolean();
+		d.boxedInt = tlr.nextInt();
+		d.boxedLong = Long.MIN_VALUE;
+		
+		ByteBuffer buffer = serialize(d);
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(d.b, result.b);
+		Assert.assertEquals(d.c, result.c);
+		Assert.assertEquals(d.s, result.s);
+		Assert.assertEquals(d.l, result.l);
+		Assert.assertEquals(d.bool, result.bool);
+		Assert.assertEquals(d.boxedInt, result.boxedInt);
+		Assert.assertEquals(d.boxedLong, result.boxedLong);
+	}
+	
+	@Test
+	public void testLength() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@Array(sizeType = VarInt.class) @VarInt int[] ints;
+			@Array(sizeType = VarInt.class) @VarInt long[] longs;
+			@UTF8(nullTerminate = false, lengthType = VarInt.class) String text;
+		}
+		
+		Data d = new Data();
+		d.ints = new int[200];
+		for(int i = 0; i < d.ints.length; i++) {
+			d.ints[i] = tlr.nextInt(1 << 14);
+		}
+		d.longs = new long[] {0, 1L << 35, -1};
+		d.text = "varint";
+		
+		ByteBuffer buffer = serialize(d);
+		Assert.assertEquals(serializer.sizeOf(d), buffer.remaining());
+		Assert.assertEquals(-1, serializer.getFixedSize(Data.class));
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertArrayEquals(d.ints, result.ints);
+		Assert.assertArrayEquals(d.longs, result.longs);
+		Assert.assertEquals(d.text, result.text);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMalformed() {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] {-1, -1, -1, -1, -1, 1});
+		VarIntConverter.getVarInt(buffer);
+	}
+	
+	private ByteBuffer serialize(Object data) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
+}
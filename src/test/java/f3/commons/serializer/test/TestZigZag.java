@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2010-2018 fork3
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES 
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE 
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR 
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package f3.commons.serializer.test;
+
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import f3.commons.serializer.Deserializer;
+import f3.commons.serializer.IConverter;
+import f3.commons.serializer.Serializer;
+import f3.commons.serializer.converters.VarIntConverter;
+import f3.commons.serializer.converters.ZigZagConverter;
+import f3.commons.serializer.types.Array;
+import f3.commons.serializer.types.Char;
+import f3.commons.serializer.types.ZigZag;
+
+/**
+ * @author n3k0nation
+ *
+ */
+public class TestZigZag {
+	private final Serializer serializer = new Serializer();
+	private final Deserializer deserializer = new Deserializer();
+	private final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+	
+	@Test
+	public void testMapping() {
+		Assert.assertEquals(0, ZigZagConverter.encode(0));
+		Assert.assertEquals(1, ZigZagConverter.encode(-1));
+		Assert.assertEquals(2, ZigZagConverter.encode(1));
+		Assert.assertEquals(3, ZigZagConverter.encode(-2));
+		Assert.assertEquals(-1, ZigZagConverter.encode(Integer.MIN_VALUE));
+		Assert.assertEquals(-1L, ZigZagConverter.encode(Long.MIN_VALUE));
+		
+		for(int i = 0; i < 1000; i++) {
+			final int value = tlr.nextInt();
+			final long longValue = tlr.nextLong();
+			Assert.assertEquals(value, ZigZagConverter.decode(ZigZagConverter.encode(value)));
+			Assert.assertEquals(longValue, ZigZagConverter.decode(ZigZagConverter.encode(longValue)));
+		}
+	}
+	
+	@Test
+	public void testFieldOverload() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@ZigZag int value;
+		}
+		
+		final Field field = Data.class.getDeclaredField("value");
+		final Data d = new Data();
+		d.value = -1;
+		for(IConverter converter : new IConverter[] {ZigZagConverter.getInstance(), VarIntConverter.getInstance(), ZigZagConverter.getInstance()}) {
+			final ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+			converter.serialize(d, field, buffer, serializer);
+			buffer.flip();
+			Assert.assertEquals(converter == ZigZagConverter.getInstance() ? 1 : 5, buffer.remaining());
+			
+			final Data result = new Data();
+			converter.deserialize(result, field, buffer, deserializer);
+			Assert.assertEquals(d.value, result.value);
+		}
+	}
+	
+	@Test
+	public void testSize() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@ZigZag int value;
+		}
+		
+		final int[] values = {0, -1, 1, -64, 63, 64, -65, Integer.MAX_VALUE, Integer.MIN_VALUE};
+		final int[] sizes = {1, 1, 1, 1, 1, 2, 2, 5, 5};
+		for(int i = 0; i < values.length; i++) {
+			Data d = new Data();
+			d.value = values[i];
+			ByteBuffer buffer = serialize(d);
+			Assert.assertEquals(sizes[i], buffer.remaining());
+			Assert.assertEquals(sizes[i], serializer.sizeOf(d));
+			Assert.assertEquals(values[i], deserializer.deserializeObject(Data.class, buffer).value);
+		}
+	}
+	
+	@Test
+	public void testTypes() throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		class Data {
+			@ZigZag byte b;
+			@ZigZag short s;
+			@ZigZag long l;
+			@ZigZag Integer boxed;
+			@Array(sizeType = Char.class) @ZigZag short[] deltas;
+			@Array(sizeType = Char.class) @ZigZag long[] longs;
+		}
+		
+		Data d = new Data();
+		d.b = (byte) tlr.nextInt();
+		d.s = (short) tlr.nextInt();
+		d.l = tlr.nextLong();
+		d.boxed = -tlr.nextInt(100);
+		d.deltas = new short[32];
+		for(int i = 0; i < d.deltas.length; i++) {
+			d.deltas[i] = (short) tlr.nextInt(-64, 64);
+		}
+		d.longs = new long[] {-1, Long.MIN_VALUE, Long.MAX_VALUE};
+		
+		ByteBuffer buffer = serialize(d);
+		Assert.assertEquals(serializer.sizeOf(d), buffer.remaining());
+		
+		Data result = deserializer.deserializeObject(Data.class, buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(d.b, result.b);
+		Assert.assertEquals(d.s, result.s);
+		Assert.assertEquals(d.l, result.l);
+		Assert.assertEquals(d.boxed, result.boxed);
+		Assert.assertArrayEquals(d.deltas, result.deltas);
+		Assert.assertArrayEquals(d.longs, result.longs);
+	}
+	
+	private ByteBuffer serialize(Object data) throws IllegalArgumentException, BufferOverflowException, ReflectiveOperationException {
+		ByteBuffer buffer = ByteBuffer.allocate(Serializer.defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+		serializer.serializeObject(data, buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
+}